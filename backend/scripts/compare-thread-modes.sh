@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Load comparison of platform vs virtual thread mode (throughput and p99).
+# Needs Java 21+, a reachable Postgres (DB_URL/DB_USER/DB_PASSWORD), `hey` and `jq`.
+#
+#   EMAIL=me@example.com PASSWORD=secret DOC_ID=1 ./scripts/compare-thread-modes.sh
+set -euo pipefail
+
+PORT=${PORT:-8080}
+BASE="http://localhost:${PORT}/api"
+REQUESTS=${REQUESTS:-20000}
+CONCURRENCY=${CONCURRENCY:-400}
+JAR=$(ls target/signatureapp-*.jar | head -1)
+
+run_mode() {
+  local virtual=$1
+  VIRTUAL_THREADS=$virtual java -Xmx512m -jar "$JAR" > "target/loadtest-virtual-${virtual}.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null" RETURN
+  until curl -s -o /dev/null "http://localhost:${PORT}/error"; do sleep 1; done
+
+  local token
+  token=$(curl -s -H 'Content-Type: application/json' \
+    -d "{\"email\":\"${EMAIL}\",\"password\":\"${PASSWORD}\"}" "${BASE}/auth/login" | jq -r .token)
+
+  for path in "/docs" "/docs/download/${DOC_ID}"; do
+    echo "== virtual=${virtual} GET ${path}"
+    hey -n "$REQUESTS" -c "$CONCURRENCY" -H "Authorization: Bearer ${token}" "${BASE}${path}" \
+      | grep -E 'Requests/sec|99% in|\[[0-9]{3}\]'
+  done
+}
+
+run_mode false
+run_mode true
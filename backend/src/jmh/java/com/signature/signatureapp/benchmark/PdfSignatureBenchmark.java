@@ -0,0 +1,58 @@
+package com.signature.signatureapp.benchmark;
+
+import com.signature.signatureapp.service.PdfService;
+import com.signature.signatureapp.service.SignatureImageCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// PdfService.addSignatureToPdf across document sizes, signature kinds and save modes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfSignatureBenchmark {
+
+    @Param({ "1", "20", "200" })
+    public int pages;
+
+    // 0 = text-only pages, otherwise a scan-like image of this many KB per page
+    @Param({ "0", "256" })
+    public int scanKiloBytesPerPage;
+
+    @Param({ "image", "text" })
+    public String signatureType;
+
+    @Param({ "incremental", "full" })
+    public String saveMode;
+
+    private PdfService pdfService;
+    private Path source;
+    private String signatureData;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path corpus = Paths.get("target", "pdf-corpus");
+        Files.createDirectories(corpus);
+        source = SyntheticPdfCorpus.createPdf(corpus, pages, scanKiloBytesPerPage);
+        signatureData = "image".equals(signatureType) ? SyntheticPdfCorpus.signatureDataUrl(400, 120) : "Jane Doe";
+
+        pdfService = new PdfService();
+        ReflectionTestUtils.setField(pdfService, "saveMode", saveMode);
+        ReflectionTestUtils.setField(pdfService, "imageCache", new SignatureImageCache(256));
+    }
+
+    @Benchmark
+    public String addSignatureToPdf() throws IOException {
+        String signed = pdfService.addSignatureToPdf(source.toString(), signatureData, 72, 72, Math.max(1, pages / 2));
+        Files.delete(Paths.get(signed));
+        return signed;
+    }
+}
@@ -0,0 +1,127 @@
+package com.signature.signatureapp.benchmark;
+
+import com.signature.signatureapp.config.StorageConfig;
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import com.signature.signatureapp.storage.StorageBackend;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// The same write / read / ranged-read workload against every StorageBackend. The s3 backend
+// needs an S3-compatible endpoint (MinIO works), configured through the environment:
+//   S3_ENDPOINT=http://localhost:9000 S3_ACCESS_KEY=... S3_SECRET_KEY=... [S3_BUCKET=storage-bench]
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageThroughputBenchmark {
+
+    private static final int RANGE_BYTES = 256 * 1024;
+
+    @Param({ "local", "s3" })
+    public String backend;
+
+    @Param({ "1048576", "16777216" })
+    public int objectSize;
+
+    private StorageBackend storage;
+    private S3Client s3Client;
+    private Path workDir;
+    private byte[] content;
+    private String readKey;
+    private final List<String> written = new ArrayList<>();
+
+    // Reported by JMH as bytes/s next to ops/s
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("storage-bench");
+        if ("s3".equals(backend)) {
+            String endpoint = System.getenv("S3_ENDPOINT");
+            if (endpoint == null || endpoint.isBlank()) {
+                throw new IllegalStateException("Set S3_ENDPOINT, S3_ACCESS_KEY and S3_SECRET_KEY to benchmark s3");
+            }
+            s3Client = new StorageConfig().s3Client(endpoint, env("S3_REGION", "us-east-1"),
+                    env("S3_ACCESS_KEY", ""), env("S3_SECRET_KEY", ""), true);
+            String bucket = env("S3_BUCKET", "storage-bench");
+            storage = new StorageConfig().s3StorageBackend(s3Client, bucket, 8 * 1024 * 1024,
+                    workDir.toString(), true);
+        } else {
+            storage = new LocalStorageBackend(workDir.resolve("store"));
+        }
+
+        content = SyntheticPdfCorpus.randomBytes(objectSize, objectSize);
+        readKey = "bench/read-" + objectSize + ".bin";
+        storage.write(readKey, new ByteArrayInputStream(content));
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteWritten() throws IOException {
+        for (String key : written) {
+            storage.delete(key);
+        }
+        written.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.delete(readKey);
+        if (s3Client != null) {
+            s3Client.close();
+        }
+        FileSystemUtils.deleteRecursively(workDir);
+    }
+
+    // Streamed upload of content with unknown length (multipart above the part size on s3)
+    @Benchmark
+    public long write(Bytes counter) throws IOException {
+        String key = "bench/write-" + UUID.randomUUID() + ".bin";
+        written.add(key);
+        long size = storage.write(key, new ByteArrayInputStream(content));
+        counter.bytes += size;
+        return size;
+    }
+
+    @Benchmark
+    public long read(Bytes counter) throws IOException {
+        try (InputStream in = storage.read(readKey)) {
+            long size = in.transferTo(OutputStream.nullOutputStream());
+            counter.bytes += size;
+            return size;
+        }
+    }
+
+    // What a Range download or a PDF viewer seeking into a large file costs
+    @Benchmark
+    public long rangedRead(Bytes counter) throws IOException {
+        int length = Math.min(RANGE_BYTES, objectSize);
+        try (InputStream in = storage.read(readKey, (objectSize - length) / 2, length)) {
+            long size = in.transferTo(OutputStream.nullOutputStream());
+            counter.bytes += size;
+            return size;
+        }
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? fallback : value;
+    }
+}
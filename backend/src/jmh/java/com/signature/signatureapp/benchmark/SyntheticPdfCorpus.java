@@ -0,0 +1,110 @@
+package com.signature.signatureapp.benchmark;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Random;
+
+// Deterministic synthetic inputs for the benchmarks: text pages, optionally carrying a noise
+// image of roughly the requested size to mimic scanner output that does not compress.
+public final class SyntheticPdfCorpus {
+
+    private SyntheticPdfCorpus() {
+    }
+
+    public static Path createPdf(Path directory, int pages, int scanKiloBytesPerPage) throws IOException {
+        Path target = directory.resolve("corpus_" + pages + "p_" + scanKiloBytesPerPage + "kb.pdf");
+        if (Files.exists(target)) {
+            return target;
+        }
+
+        Random random = new Random(pages * 31L + scanKiloBytesPerPage);
+        try (PDDocument document = new PDDocument()) {
+            PDImageXObject scan = null;
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                if (scanKiloBytesPerPage > 0) {
+                    // Distinct image per page so nothing is shared between pages
+                    scan = LosslessFactory.createFromImage(document, noiseImage(random, scanKiloBytesPerPage));
+                }
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    if (scan != null) {
+                        content.drawImage(scan, 0, 0, PDRectangle.A4.getWidth(), PDRectangle.A4.getHeight());
+                    }
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 11);
+                    content.newLineAtOffset(50, 780);
+                    for (int line = 0; line < 40; line++) {
+                        content.showText("Page " + (i + 1) + " clause " + line + " lorem ipsum dolor sit amet");
+                        content.newLineAtOffset(0, -16);
+                    }
+                    content.endText();
+                }
+            }
+            document.save(target.toFile());
+        }
+        return target;
+    }
+
+    // A PNG data URL like the one the frontend's signature pad produces
+    public static String signatureDataUrl(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(42);
+        for (int x = 0; x < width; x++) {
+            int y = height / 2 + (int) (Math.sin(x / 9.0) * height / 4) + random.nextInt(3);
+            for (int dy = -2; dy <= 2; dy++) {
+                int py = Math.max(0, Math.min(height - 1, y + dy));
+                image.setRGB(x, py, 0xFF101060);
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(png.toByteArray());
+    }
+
+    public static byte[] randomBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static BufferedImage noiseImage(Random random, int kiloBytes) {
+        // Random RGB pixels barely compress, ~3 bytes per pixel
+        int side = Math.max(1, (int) Math.sqrt(kiloBytes * 1024 / 3.0));
+        BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        return image;
+    }
+
+    // Writes a corpus to disk for manual runs: SyntheticPdfCorpus <dir> [pages...]
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "target/pdf-corpus");
+        Files.createDirectories(directory);
+        int[] pageCounts = { 1, 10, 50, 200 };
+        int[] scanSizes = { 0, 256 };
+        for (int pages : pageCounts) {
+            for (int scanKb : scanSizes) {
+                Path pdf = createPdf(directory, pages, scanKb);
+                System.out.println(pdf + " " + Files.size(pdf) + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.signature.signatureapp.benchmark;
+
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.FileBlob;
+import com.signature.signatureapp.model.User;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.repository.FileBlobRepository;
+import com.signature.signatureapp.repository.UserRepository;
+import com.signature.signatureapp.service.DocumentService;
+import com.signature.signatureapp.service.FileBlobService;
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import com.signature.signatureapp.storage.StorageBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+// DocumentService.storeFile (stream, hash and move to the blob store) with the
+// repositories replaced by in-memory stand-ins, so only the file path is measured. The
+// services are wired by a small Spring context, the way the application wires them.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadCopyBenchmark {
+
+    @Param({ "65536", "1048576", "16777216" })
+    public int fileSize;
+
+    // Unique content writes a new blob per upload; duplicate content only hashes
+    @Param({ "true", "false" })
+    public boolean uniqueContent;
+
+    private AnnotationConfigApplicationContext context;
+    private DocumentService documentService;
+    private Path uploadDir;
+    private byte[] content;
+    private long sequence;
+
+    // Reported by JMH as bytes/s next to ops/s
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        uploadDir = Files.createTempDirectory("upload-bench");
+        content = SyntheticPdfCorpus.randomBytes(fileSize, fileSize);
+
+        Map<String, FileBlob> blobs = new ConcurrentHashMap<>();
+        FileBlobRepository fileBlobRepository = Mockito.mock(FileBlobRepository.class);
+        Mockito.when(fileBlobRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(blobs.get(invocation.<String>getArgument(0))));
+        Mockito.when(fileBlobRepository.acquire(anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            FileBlob blob = new FileBlob(invocation.getArgument(0), invocation.getArgument(1),
+                    invocation.getArgument(2), 1, null, null, null, null);
+            blobs.merge(blob.getHash(), blob, (existing, fresh) -> {
+                existing.setRefCount(existing.getRefCount() + 1);
+                return existing;
+            });
+            return 1;
+        });
+
+        User user = new User(1L, "bench@example.com", "x", "Bench");
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        DocumentRepository documentRepository = Mockito.mock(DocumentRepository.class);
+        Mockito.when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(StorageBackend.class, () -> new LocalStorageBackend(uploadDir));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(FileBlobRepository.class, () -> fileBlobRepository);
+        context.registerBean(UserRepository.class, () -> userRepository);
+        context.registerBean(DocumentRepository.class, () -> documentRepository);
+        context.registerBean(FileBlobService.class);
+        context.registerBean(DocumentService.class);
+        // Everything else DocumentService uses (geometry extraction, versions, stats, events) is a
+        // no-op mock, so only the storage path is measured
+        mockMissingCollaborators(DocumentService.class);
+        mockMissingCollaborators(FileBlobService.class);
+        context.refresh();
+        documentService = context.getBean(DocumentService.class);
+    }
+
+    // Registered as finished singletons: a mocked service keeps its own @Autowired fields, which
+    // must not be injected
+    private void mockMissingCollaborators(Class<?> type) {
+        DefaultListableBeanFactory beanFactory = context.getDefaultListableBeanFactory();
+        ReflectionUtils.doWithFields(type, field -> {
+            Class<?> dependency = field.getType();
+            if (beanFactory.getBeanNamesForType(dependency).length == 0) {
+                beanFactory.registerSingleton(dependency.getName(), Mockito.mock(dependency));
+            }
+        }, field -> field.isAnnotationPresent(Autowired.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+    @Benchmark
+    public Document storeFile(Bytes counter) {
+        if (uniqueContent) {
+            ByteBuffer.wrap(content).putLong(0, ++sequence);
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "contract.pdf", "application/pdf", content);
+        Document document = documentService.storeFile(file, 1L);
+        counter.bytes += fileSize;
+        return document;
+    }
+}
@@ -0,0 +1,75 @@
+package com.signature.signatureapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    // Bounded worker pool for asynchronous signing. When every worker is busy and the
+    // queue is full, submissions are rejected so the controller can answer 429.
+    @Bean(name = "signingExecutor")
+    public ThreadPoolTaskExecutor signingExecutor(@Value("${signing.async.workers:4}") int workers,
+            @Value("${signing.async.queue-capacity:100}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("signing-");
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            // Still bounded by workers/queue-capacity: each job holds a whole PDF in memory
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("signing-").getVirtualThreadFactory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Parallel storage of bulk upload files. When saturated the request thread stores the
+    // file itself, which throttles bulk uploads instead of queueing without bound.
+    @Bean(name = "uploadExecutor")
+    public ThreadPoolTaskExecutor uploadExecutor(@Value("${upload.bulk.workers:4}") int workers,
+            @Value("${upload.bulk.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Writes to event streams. The queue needs no bound: each subscriber has at most one drain
+    // task queued or running. DocumentEventService grows the pool while writes are stuck.
+    @Bean(name = "eventExecutor")
+    public ThreadPoolTaskExecutor eventExecutor(@Value("${events.sse.send-threads:4}") int threads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("events-");
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            // A write blocked on a stalled client then parks instead of holding a carrier thread
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("events-").getVirtualThreadFactory());
+        }
+        return executor;
+    }
+
+    @Bean
+    public FilterRegistrationBean<EventStreamFilter> eventStreamFilter() {
+        FilterRegistrationBean<EventStreamFilter> registration = new FilterRegistrationBean<>(new EventStreamFilter());
+        registration.addUrlPatterns("/api/docs/events");
+        return registration;
+    }
+}
@@ -0,0 +1,75 @@
+package com.signature.signatureapp.config;
+
+import com.signature.signatureapp.service.DocumentEventService;
+import com.signature.signatureapp.service.DocumentLocks;
+import com.signature.signatureapp.service.PdfMemoryBudget;
+import com.signature.signatureapp.service.SignatureImageCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+// Publishes the counters the PDF, signing and event components already keep, so they show up on /actuator/prometheus
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder pdfAdmissionMetrics(PdfMemoryBudget budget) {
+        return registry -> {
+            FunctionCounter.builder("pdf.admission", budget, PdfMemoryBudget::getAdmitted)
+                    .tag("result", "admitted").register(registry);
+            FunctionCounter.builder("pdf.admission", budget, PdfMemoryBudget::getQueued)
+                    .tag("result", "queued").register(registry);
+            FunctionCounter.builder("pdf.admission", budget, PdfMemoryBudget::getRejected)
+                    .tag("result", "rejected").register(registry);
+            Gauge.builder("pdf.admission.waiting", budget, PdfMemoryBudget::getWaiting).register(registry);
+            Gauge.builder("pdf.admission.budget", budget, PdfMemoryBudget::getBudgetBytes)
+                    .baseUnit("bytes").register(registry);
+            Gauge.builder("pdf.admission.available", budget, PdfMemoryBudget::getAvailableBytes)
+                    .baseUnit("bytes").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder documentLockMetrics(DocumentLocks locks) {
+        return registry -> {
+            FunctionCounter.builder("signing.lock", locks, l -> l.getAcquired() - l.getContended())
+                    .tag("result", "immediate").register(registry);
+            FunctionCounter.builder("signing.lock", locks, DocumentLocks::getContended)
+                    .tag("result", "contended").register(registry);
+            FunctionCounter.builder("signing.lock", locks, DocumentLocks::getTimedOut)
+                    .tag("result", "timeout").register(registry);
+            // Waits of contended acquisitions only
+            FunctionTimer.builder("signing.lock.wait", locks, DocumentLocks::getContended,
+                    DocumentLocks::getWaitSeconds, TimeUnit.SECONDS).register(registry);
+            Gauge.builder("signing.lock.waiting", locks, DocumentLocks::getWaiting).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder documentEventMetrics(DocumentEventService events) {
+        return registry -> {
+            Gauge.builder("events.sse.subscribers", events, DocumentEventService::getSubscriberCount)
+                    .register(registry);
+            FunctionCounter.builder("events.sse.sent", events, DocumentEventService::getSent).register(registry);
+            Gauge.builder("events.sse.stuck", events, DocumentEventService::getStuckSends).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder signatureImageCacheMetrics(SignatureImageCache cache) {
+        return registry -> {
+            FunctionCounter.builder("pdf.image.cache", cache, SignatureImageCache::getHits)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("pdf.image.cache", cache, SignatureImageCache::getMisses)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("pdf.image.cache.evictions", cache, SignatureImageCache::getEvictions)
+                    .register(registry);
+            Gauge.builder("pdf.image.cache.size", cache, SignatureImageCache::size).register(registry);
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.signature.signatureapp.config;
+
+import com.signature.signatureapp.service.PdfMemoryBudget;
+import com.signature.signatureapp.service.PdfOptimizationService;
+import com.signature.signatureapp.service.SignatureImageCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// /actuator/pdfprocessing: PDF admission counters (admitted / queued / rejected), signature image
+// cache stats and bytes saved by the optimizer. Process-wide, so it sits with the other operator
+// endpoints rather than under /api
+@Component
+@Endpoint(id = "pdfprocessing")
+public class PdfProcessingEndpoint {
+
+    @Autowired
+    private PdfMemoryBudget pdfMemoryBudget;
+
+    @Autowired
+    private SignatureImageCache signatureImageCache;
+
+    @Autowired
+    private PdfOptimizationService pdfOptimizationService;
+
+    @ReadOperation
+    public Map<String, Object> pdfProcessing() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("admission", pdfMemoryBudget.stats());
+        stats.put("imageCache", signatureImageCache.stats());
+        stats.put("optimization", pdfOptimizationService.stats());
+        return stats;
+    }
+}
@@ -75,6 +75,26 @@ public class SecurityConfig {
                         .requestMatchers(
                                 new org.springframework.security.web.util.matcher.AntPathRequestMatcher("/error"))
                         .permitAll()
+                        // Completion or failure of an already authenticated async request, e.g. an event
+                        // stream; Tomcat includes the error page when a committed response fails
+                        .dispatcherTypeMatchers(jakarta.servlet.DispatcherType.ASYNC,
+                                jakarta.servlet.DispatcherType.ERROR, jakarta.servlet.DispatcherType.INCLUDE)
+                        .permitAll()
+                        // Liveness and readiness probes on the application port
+                        .requestMatchers(new org.springframework.security.web.util.matcher.AntPathRequestMatcher(
+                                "/livez"))
+                        .permitAll()
+                        .requestMatchers(new org.springframework.security.web.util.matcher.AntPathRequestMatcher(
+                                "/readyz"))
+                        .permitAll()
+                        // Health and the Prometheus scrape. /actuator is only served on management.server.port,
+                        // which is never published; other actuator endpoints still need a token
+                        .requestMatchers(new org.springframework.security.web.util.matcher.AntPathRequestMatcher(
+                                "/actuator/health/**"))
+                        .permitAll()
+                        .requestMatchers(new org.springframework.security.web.util.matcher.AntPathRequestMatcher(
+                                "/actuator/prometheus"))
+                        .permitAll()
                         .anyRequest().authenticated());
 
         http.authenticationProvider(authenticationProvider());
@@ -101,7 +121,8 @@ public class SecurityConfig {
     
         configuration.setAllowedHeaders(List.of("*"));
     
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setExposedHeaders(List.of("Authorization", "ETag", "Last-Modified",
+                "Accept-Ranges", "Content-Range", "Content-Length", "Upload-Offset"));
     
         configuration.setAllowCredentials(true);
     
@@ -0,0 +1,74 @@
+package com.signature.signatureapp.config;
+
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import com.signature.signatureapp.storage.S3StorageBackend;
+import com.signature.signatureapp.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+// storage.backend=local (default) keeps files under storage.local.root; storage.backend=s3
+// uses an S3-compatible bucket, which lets several stateless instances share one store.
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+    public StorageBackend localStorageBackend(@Value("${storage.local.root:${file.upload-dir:uploads}}") String root,
+            @Value("${storage.local.layout:sharded}") String layout) {
+        if (!"sharded".equals(layout) && !"flat".equals(layout)) {
+            throw new IllegalArgumentException("storage.local.layout must be sharded or flat, not " + layout);
+        }
+        return new LocalStorageBackend(Paths.get(root), "sharded".equals(layout));
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+    public S3Client s3Client(@Value("${storage.s3.endpoint:}") String endpoint,
+            @Value("${storage.s3.region:us-east-1}") String region,
+            @Value("${storage.s3.access-key:}") String accessKey,
+            @Value("${storage.s3.secret-key:}") String secretKey,
+            @Value("${storage.s3.path-style-access:true}") boolean pathStyleAccess) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyleAccess);
+        if (!endpoint.isBlank()) {
+            // MinIO and other S3-compatible servers
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        if (!accessKey.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+    public StorageBackend s3StorageBackend(S3Client s3Client,
+            @Value("${storage.s3.bucket}") String bucket,
+            @Value("${storage.s3.part-size-bytes:8388608}") int partSize,
+            @Value("${storage.s3.scratch-dir:${java.io.tmpdir}/signatureapp-storage}") String scratchDir,
+            @Value("${storage.s3.create-bucket:false}") boolean createBucket) {
+        if (createBucket) {
+            try {
+                s3Client.headBucket(request -> request.bucket(bucket));
+            } catch (NoSuchBucketException e) {
+                s3Client.createBucket(request -> request.bucket(bucket));
+            }
+        }
+        return new S3StorageBackend(s3Client, bucket, partSize, Paths.get(scratchDir));
+    }
+}
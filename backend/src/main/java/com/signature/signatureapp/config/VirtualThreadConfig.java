@@ -0,0 +1,31 @@
+package com.signature.signatureapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Active when spring.threads.virtual.enabled=true on Java 21+. Spring Boot then runs Tomcat
+// requests, @Async and @Scheduled work on virtual threads, which removes the implicit cap the
+// platform thread pool (server.tomcat.threads.max) used to put on concurrent JDBC users.
+// The filter below restores that cap in front of the Hikari pool. With open-in-view, a request
+// keeps its connection until it completes, so by default no more requests run at once than
+// there are pooled connections; the rest wait in the filter instead of in Hikari.
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${app.virtual-threads.max-concurrent-requests:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrentRequests,
+            @Value("${app.virtual-threads.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(maxConcurrentRequests, acquireTimeoutMs));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
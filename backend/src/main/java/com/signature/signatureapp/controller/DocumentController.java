@@ -1,26 +1,73 @@
 package com.signature.signatureapp.controller;
 
+import com.signature.signatureapp.dto.BulkUploadResult;
+import com.signature.signatureapp.dto.DocumentPage;
 import com.signature.signatureapp.model.Document;
 import com.signature.signatureapp.security.UserDetailsImpl;
+import com.signature.signatureapp.service.BulkUploadService;
+import com.signature.signatureapp.service.ChangeVersionService;
+import com.signature.signatureapp.service.DocumentEventService;
 import com.signature.signatureapp.service.DocumentService;
+import com.signature.signatureapp.service.DocumentVersionService;
+import com.signature.signatureapp.service.FileDownloadService;
+import com.signature.signatureapp.service.PageGeometryService;
+import com.signature.signatureapp.service.PdfAdmissionException;
+import com.signature.signatureapp.service.PdfTooLargeException;
+import com.signature.signatureapp.service.PreviewService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/docs")
 public class DocumentController {
 
+    private static final Logger logger = LoggerFactory.getLogger(DocumentController.class);
+
+    // Lists are per user and change often: caches keep them but revalidate on every use
+    static final CacheControl LIST_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private DocumentService documentService;
 
+    @Autowired
+    private BulkUploadService bulkUploadService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private PreviewService previewService;
+
+    @Autowired
+    private PageGeometryService pageGeometryService;
+
+    @Autowired
+    private DocumentVersionService documentVersionService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private DocumentEventService documentEventService;
+
     @PostMapping("/upload")
     public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file, Authentication authentication) {
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
@@ -28,14 +75,72 @@ public class DocumentController {
         return ResponseEntity.ok(document);
     }
 
+    // Many files in one request, either as repeated "files" parts or as one ZIP "archive" part.
+    // Answers 200 with a per-file result even when some files failed.
+    @PostMapping("/upload/bulk")
+    public ResponseEntity<?> uploadFiles(@RequestParam(value = "files", required = false) List<MultipartFile> files,
+            @RequestParam(value = "archive", required = false) MultipartFile archive,
+            Authentication authentication) throws IOException {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        if ((files == null || files.isEmpty()) == (archive == null)) {
+            return ResponseEntity.badRequest().body("Send either files or a single ZIP archive");
+        }
+
+        try {
+            BulkUploadResult result = archive != null
+                    ? bulkUploadService.storeArchive(archive, userDetails.getId())
+                    : bulkUploadService.storeFiles(files, userDetails.getId());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping
-    public List<Document> getMyDocuments(Authentication authentication) {
+    public ResponseEntity<?> getMyDocuments(Authentication authentication, WebRequest webRequest) {
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        System.out.println(
-                "Fetching documents for user: " + userDetails.getUsername() + " (ID: " + userDetails.getId() + ")");
+        String etag = changeVersionService.etag(userDetails.getId());
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         List<Document> docs = documentService.getDocumentsByUser(userDetails.getId());
-        System.out.println("Found " + docs.size() + " documents.");
-        return docs;
+        logger.debug("Found {} documents for user {}", docs.size(), userDetails.getId());
+        return ResponseEntity.ok().eTag(etag).cacheControl(LIST_CACHE_CONTROL).body(docs);
+    }
+
+    // Document status and version events for the caller as server-sent events; see DocumentEventService
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        SseEmitter emitter = documentEventService.subscribe(userDetails.getId());
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                // Stops nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    // Keyset-paginated listing, pass nextCursor back as cursor to fetch the following page
+    @GetMapping("/page")
+    public ResponseEntity<?> getMyDocumentPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String status,
+            Authentication authentication, WebRequest webRequest) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        // The tag covers every page and filter; the URL tells the client's cache entries apart
+        String etag = changeVersionService.etag(userDetails.getId());
+        if (webRequest.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        try {
+            DocumentPage page = documentService.getDocumentPage(userDetails.getId(), status, cursor, limit);
+            return ResponseEntity.ok().eTag(etag).cacheControl(LIST_CACHE_CONTROL).body(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
     }
 
     @GetMapping("/{id}")
@@ -44,14 +149,83 @@ public class DocumentController {
         return ResponseEntity.ok(document);
     }
 
+    // Upload and every signed revision, with retention state
+    @GetMapping("/{id}/versions")
+    public ResponseEntity<?> getVersions(@PathVariable Long id) {
+        Document document = documentService.getDocument(id);
+        return ResponseEntity.ok(documentVersionService.getVersions(document.getId()));
+    }
+
+    // Page count plus MediaBox/CropBox and rotation per page, for laying out signature fields
+    @GetMapping("/{id}/geometry")
+    public ResponseEntity<?> getGeometry(@PathVariable Long id) {
+        Document document = documentService.getDocument(id);
+        try {
+            return ResponseEntity.ok(pageGeometryService.getGeometry(document));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (PdfTooLargeException e) {
+            return tooLarge(e);
+        } catch (PdfAdmissionException e) {
+            return busy(e);
+        }
+    }
+
+    // Supports Range / If-Range and answers If-None-Match / If-Modified-Since with 304
     @GetMapping("/download/{id}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long id) {
+    public void downloadFile(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         Document document = documentService.getDocument(id);
-        Resource resource = documentService.loadFileAsResource(document.getFilePath());
+        fileDownloadService.serve(document.getFilePath(), document.getFileType(), document.getName(),
+                document.getContentHash(), request, response);
+    }
 
+    // Page thumbnail, rendered on first request and served from the preview cache afterwards
+    @GetMapping("/{id}/pages/{page}/preview")
+    public ResponseEntity<?> getPagePreview(@PathVariable Long id, @PathVariable int page,
+            @RequestParam(defaultValue = "96") int dpi,
+            @RequestParam(defaultValue = "png") String format,
+            WebRequest webRequest) throws IOException {
+        Document document = documentService.getDocument(id);
+        PreviewService.Preview preview;
+        try {
+            preview = previewService.renderPage(document, page, dpi, format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (PdfTooLargeException e) {
+            return tooLarge(e);
+        } catch (PdfAdmissionException e) {
+            return busy(e);
+        }
+
+        // The key covers content, page, dpi and format, so a given URL+ETag never changes
+        String etag = "\"" + preview.getKey() + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate();
+        if (webRequest.checkNotModified(etag)) {
+            preview.close();
+            return ResponseEntity.status(304).eTag(etag).cacheControl(cacheControl).build();
+        }
+        // The stream was opened while the file was still cached and is closed once written
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(document.getFileType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + document.getName() + "\"")
-                .body(resource);
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(preview.getContentType()))
+                .contentLength(preview.getSize())
+                .body(new InputStreamResource(preview.getContent()));
+    }
+
+    // Retrying cannot help, so no Retry-After
+    static ResponseEntity<?> tooLarge(PdfTooLargeException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(e.getMessage());
+    }
+
+    private ResponseEntity<?> busy(PdfAdmissionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(e.getMessage());
+    }
+
+    static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(LIST_CACHE_CONTROL).build();
     }
 }
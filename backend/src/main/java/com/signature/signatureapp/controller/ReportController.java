@@ -1,14 +1,14 @@
 package com.signature.signatureapp.controller;
 
-import com.signature.signatureapp.model.User;
-import com.signature.signatureapp.repository.DocumentRepository;
-import com.signature.signatureapp.repository.UserRepository;
-import com.signature.signatureapp.security.JwtUtils;
+import com.signature.signatureapp.security.UserDetailsImpl;
+import com.signature.signatureapp.service.ChangeVersionService;
+import com.signature.signatureapp.service.StatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -17,20 +17,27 @@ import java.util.Map;
 public class ReportController {
 
     @Autowired
-    private DocumentRepository documentRepository;
+    private StatsService statsService;
 
     @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private JwtUtils jwtUtils;
+    private ChangeVersionService changeVersionService;
 
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getStats(@RequestHeader("Authorization") String token) {
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("envelopesSent", 124);
-        stats.put("envelopesCompleted", 98);
-        stats.put("turnaroundTime", "1 day 4 hours");
-        return ResponseEntity.ok(stats);
+    public ResponseEntity<?> getStats(Authentication authentication, WebRequest webRequest) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        String etag = changeVersionService.etag(userDetails.getId());
+        if (webRequest.checkNotModified(etag)) {
+            return DocumentController.notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(DocumentController.LIST_CACHE_CONTROL)
+                .body(statsService.getStats(userDetails.getId()));
+    }
+
+    // Recomputes the caller's rollup from the source tables
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStats(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        statsService.rebuild(userDetails.getId());
+        return ResponseEntity.ok(statsService.getStats(userDetails.getId()));
     }
 }
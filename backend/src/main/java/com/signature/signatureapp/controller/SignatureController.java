@@ -1,79 +1,121 @@
 package com.signature.signatureapp.controller;
 
 import com.signature.signatureapp.dto.SignatureRequest;
-import com.signature.signatureapp.model.Document;
-import com.signature.signatureapp.model.Signature;
-import com.signature.signatureapp.model.User;
-import com.signature.signatureapp.repository.DocumentRepository;
-import com.signature.signatureapp.repository.SignatureRepository;
-import com.signature.signatureapp.repository.UserRepository;
 import com.signature.signatureapp.security.UserDetailsImpl;
-import com.signature.signatureapp.service.PdfService;
+import com.signature.signatureapp.service.DocumentBusyException;
+import com.signature.signatureapp.service.PdfAdmissionException;
+import com.signature.signatureapp.service.PdfTooLargeException;
+import com.signature.signatureapp.service.SignatureService;
+import com.signature.signatureapp.service.SigningJob;
+import com.signature.signatureapp.service.SigningJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/signatures")
 public class SignatureController {
 
-    @Autowired
-    private SignatureRepository signatureRepository;
-
-    @Autowired
-    private DocumentRepository documentRepository;
+    private static final Logger logger = LoggerFactory.getLogger(SignatureController.class);
 
     @Autowired
-    private UserRepository userRepository;
+    private SignatureService signatureService;
 
     @Autowired
-    private PdfService pdfService;
+    private SigningJobService signingJobService;
 
     @PostMapping("/sign")
     public ResponseEntity<?> signDocument(@RequestBody SignatureRequest request, Authentication authentication) {
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 
-        Document document = documentRepository.findById(request.getDocumentId())
-                .orElseThrow(() -> new RuntimeException("Document not found"));
+        try {
+            signatureService.signDocument(request.getDocumentId(), List.of(request), userDetails.getId());
+            return ResponseEntity.ok("Document signed successfully!");
 
-        User user = userRepository.findById(userDetails.getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        } catch (PdfTooLargeException e) {
+            return DocumentController.tooLarge(e);
+        } catch (PdfAdmissionException | DocumentBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Document was changed by another request, please retry");
+        } catch (Exception e) {
+            logger.warn("Signing document {} failed: {}", request.getDocumentId(), e.getMessage(), e);
+            return ResponseEntity.badRequest().body("Error signing document: " + e.getMessage());
+        }
+    }
 
-        try {
-            // 1. Update PDF
-            // Note: Coordinate conversion might be needed here depending on frontend values
-            // (top-left vs bottom-left)
-            // PDFBox uses bottom-left as (0,0). Frontend (web) usually uses top-left.
-            // We'll need page height to flip Y if needed. For now passed as is.
-            String signedFilePath = pdfService.addSignatureToPdf(document.getFilePath(), request.getSignatureData(),
-                    request.getX(), request.getY(), request.getPageNumber());
-
-            // 2. Save Signature Record
-            Signature signature = new Signature();
-            signature.setDocument(document);
-            signature.setUser(user);
-            signature.setX(request.getX());
-            signature.setY(request.getY());
-            signature.setPageNumber(request.getPageNumber());
-            signature.setSignatureData(request.getSignatureData()); // Store data or reference
-
-            signatureRepository.save(signature);
-
-            // 3. Update Document path to point to signed version? Or keep original and link
-            // signed version?
-            // For simplicity, let's update the document entity to point to the new file, or
-            // create a new Document version.
-            // Updating the current document for this POC.
-            document.setFilePath(signedFilePath);
-            document.setStatus("signed");
-            documentRepository.save(document);
+    @PostMapping("/sign/batch")
+    public ResponseEntity<?> signDocumentBatch(@RequestBody List<SignatureRequest> requests,
+            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 
-            return ResponseEntity.ok("Document signed successfully!");
+        if (requests == null || requests.isEmpty()) {
+            return ResponseEntity.badRequest().body("Error signing document: no placements given");
+        }
 
+        try {
+            signatureService.signDocument(requests.get(0).getDocumentId(), requests, userDetails.getId());
+            return ResponseEntity.ok("Document signed successfully with " + requests.size() + " signature(s)!");
+
+        } catch (PdfTooLargeException e) {
+            return DocumentController.tooLarge(e);
+        } catch (PdfAdmissionException | DocumentBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Document was changed by another request, please retry");
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.warn("Signing document {} failed: {}", requests.get(0).getDocumentId(), e.getMessage(), e);
             return ResponseEntity.badRequest().body("Error signing document: " + e.getMessage());
         }
     }
+
+    // Queues the placements for a background worker and returns 202 with the job to poll
+    @PostMapping("/sign/async")
+    public ResponseEntity<?> signDocumentAsync(@RequestBody List<SignatureRequest> requests,
+            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        if (requests == null || requests.isEmpty()) {
+            return ResponseEntity.badRequest().body("Error signing document: no placements given");
+        }
+
+        try {
+            SigningJob job = signingJobService.submit(requests.get(0).getDocumentId(), requests,
+                    userDetails.getId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/signatures/jobs/" + job.getId()))
+                    .body(job);
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body("Signing queue is full, please retry later");
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getSigningJob(@PathVariable String jobId, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        SigningJob job = signingJobService.getJob(jobId);
+        if (job == null || !job.getUserId().equals(userDetails.getId())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
 }
@@ -1,22 +1,19 @@
 package com.signature.signatureapp.controller;
 
+import com.signature.signatureapp.model.FileBlob;
 import com.signature.signatureapp.model.Template;
 import com.signature.signatureapp.model.User;
 import com.signature.signatureapp.repository.TemplateRepository;
 import com.signature.signatureapp.repository.UserRepository;
 import com.signature.signatureapp.security.JwtUtils;
+import com.signature.signatureapp.service.FileBlobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/templates")
@@ -32,9 +29,9 @@ public class TemplateController {
     @Autowired
     private JwtUtils jwtUtils;
 
-    // Use same upload dir as documents for simplicity, or a subdirectory
-    @Value("${file.upload-dir}")
-    private String uploadDir;
+    // Same content-addressed store as documents, so a template uploaded again is stored once
+    @Autowired
+    private FileBlobService fileBlobService;
 
     @GetMapping
     public ResponseEntity<List<Template>> getAllTemplates(@RequestHeader("Authorization") String token) {
@@ -51,20 +48,13 @@ public class TemplateController {
             String email = jwtUtils.getUserNameFromJwtToken(token.substring(7));
             User user = userRepository.findByEmail(email).orElseThrow();
 
-            // Ensure upload directory exists
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
             // Save file
-            String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath);
+            FileBlob blob = fileBlobService.store(file.getInputStream(), ".pdf");
 
             Template template = new Template();
             template.setName(name);
-            template.setFilePath(filePath.toString());
+            template.setFilePath(blob.getFilePath());
+            template.setContentHash(blob.getHash());
             template.setCreatedBy(user);
 
             return ResponseEntity.ok(templateRepository.save(template));
@@ -0,0 +1,116 @@
+package com.signature.signatureapp.controller;
+
+import com.signature.signatureapp.dto.UploadSessionRequest;
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.UploadSession;
+import com.signature.signatureapp.security.UserDetailsImpl;
+import com.signature.signatureapp.service.ChunkedUploadService;
+import com.signature.signatureapp.service.UploadConflictException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+// Resumable uploads for files too large or connections too flaky for a single multipart request:
+// POST creates a session, PUT ?offset=N sends the next chunk as the raw request body, GET tells
+// where to resume, and POST .../complete verifies the SHA-256 and creates the document.
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<?> createSession(@RequestBody UploadSessionRequest request, Authentication authentication)
+            throws IOException {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        try {
+            UploadSession session = chunkedUploadService.create(userDetails.getId(), request.getFileName(),
+                    request.getContentType(), request.getSize(), request.getSha256());
+            return ResponseEntity.created(URI.create("/api/uploads/" + session.getId()))
+                    .header(UPLOAD_OFFSET, "0")
+                    .body(session);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getSession(@PathVariable String id, Authentication authentication) {
+        UploadSession session = session(id, authentication);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().header(UPLOAD_OFFSET, String.valueOf(session.getReceivedBytes())).body(session);
+    }
+
+    // Answers 409 with the expected Upload-Offset when the chunk is not the next one. The body must be
+    // application/octet-stream; a form content type would make the servlet parse it as parameters.
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> uploadChunk(@PathVariable String id, @RequestParam long offset,
+            HttpServletRequest request, Authentication authentication) throws IOException {
+        UploadSession session = session(id, authentication);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            long received = chunkedUploadService.writeChunk(session, offset, request.getInputStream());
+            return ResponseEntity.ok().header(UPLOAD_OFFSET, String.valueOf(received)).body(session);
+        } catch (UploadConflictException e) {
+            return conflict(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable String id, @RequestParam(required = false) String sha256,
+            Authentication authentication) throws IOException {
+        UploadSession session = session(id, authentication);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            Document document = chunkedUploadService.complete(session, sha256);
+            return ResponseEntity.ok(document);
+        } catch (UploadConflictException e) {
+            return conflict(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancel(@PathVariable String id, Authentication authentication) throws IOException {
+        UploadSession session = session(id, authentication);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            chunkedUploadService.cancel(session);
+            return ResponseEntity.noContent().build();
+        } catch (UploadConflictException e) {
+            return conflict(e);
+        }
+    }
+
+    private UploadSession session(String id, Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        return chunkedUploadService.getSession(id, userDetails.getId());
+    }
+
+    private ResponseEntity<?> conflict(UploadConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(UPLOAD_OFFSET, String.valueOf(e.getReceivedBytes()))
+                .body(e.getMessage());
+    }
+}
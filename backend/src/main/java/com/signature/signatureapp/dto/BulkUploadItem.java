@@ -0,0 +1,15 @@
+package com.signature.signatureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUploadItem {
+    private String fileName;
+    private Long documentId; // null when the file failed
+    private String status; // "stored" or "failed"
+    private String error;
+}
@@ -0,0 +1,16 @@
+package com.signature.signatureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUploadResult {
+    private int stored;
+    private int failed;
+    private List<BulkUploadItem> items; // in request / archive order
+}
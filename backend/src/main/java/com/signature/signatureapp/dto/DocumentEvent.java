@@ -0,0 +1,47 @@
+package com.signature.signatureapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Payload of the document event stream (GET /api/docs/events); the type is also the SSE event name
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DocumentEvent {
+
+    public static final String CREATED = "document.created";
+    public static final String STATUS = "document.status";
+    public static final String VERSION = "document.version";
+    // A bulk upload batch; count documents were added, refetch the list
+    public static final String BULK_CREATED = "documents.created";
+
+    private String type;
+    private Long documentId;
+    private String name;
+    private String status;
+    private Integer versionNumber;
+    private String kind;
+    private Integer count;
+    private LocalDateTime at;
+
+    public static DocumentEvent created(Long documentId, String name, String status) {
+        return new DocumentEvent(CREATED, documentId, name, status, null, null, null, LocalDateTime.now());
+    }
+
+    public static DocumentEvent status(Long documentId, String status) {
+        return new DocumentEvent(STATUS, documentId, null, status, null, null, null, LocalDateTime.now());
+    }
+
+    public static DocumentEvent version(Long documentId, int versionNumber, String kind) {
+        return new DocumentEvent(VERSION, documentId, null, null, versionNumber, kind, null, LocalDateTime.now());
+    }
+
+    public static DocumentEvent bulkCreated(int count) {
+        return new DocumentEvent(BULK_CREATED, null, null, null, null, null, count, LocalDateTime.now());
+    }
+}
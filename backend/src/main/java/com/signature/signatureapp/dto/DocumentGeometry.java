@@ -0,0 +1,16 @@
+package com.signature.signatureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentGeometry {
+    private Long documentId;
+    private int pageCount;
+    private List<PageGeometry> pages;
+}
@@ -0,0 +1,15 @@
+package com.signature.signatureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentPage {
+    private List<DocumentSummary> items;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,19 @@
+package com.signature.signatureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Lightweight listing row, selected directly by DocumentRepository without loading entities
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSummary {
+    private Long id;
+    private String name;
+    private String fileType;
+    private String status;
+    private LocalDateTime uploadTime;
+}
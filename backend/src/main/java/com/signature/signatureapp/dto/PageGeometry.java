@@ -0,0 +1,15 @@
+package com.signature.signatureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageGeometry {
+    private int page;
+    private float[] mediaBox; // [llx, lly, urx, ury] in PDF points
+    private float[] cropBox;
+    private int rotation; // 0, 90, 180 or 270, clockwise
+}
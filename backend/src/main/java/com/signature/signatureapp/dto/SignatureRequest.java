@@ -9,4 +9,8 @@ public class SignatureRequest {
     private float x;
     private float y;
     private int pageNumber;
+    // "bottom-left" (default): x/y are PDF user space points of the stamp's lower-left corner.
+    // "top-left": x/y are points from the top-left of the page as displayed (crop box, rotation
+    // applied) to the stamp's top-left corner; the server converts them using the page geometry.
+    private String origin;
 }
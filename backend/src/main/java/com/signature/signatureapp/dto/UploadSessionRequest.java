@@ -0,0 +1,17 @@
+package com.signature.signatureapp.dto;
+
+import lombok.Data;
+
+// Starts a resumable upload, see POST /api/uploads
+@Data
+public class UploadSessionRequest {
+    private String fileName;
+
+    private String contentType;
+
+    // Total size in bytes
+    private long size;
+
+    // Optional SHA-256 (hex) the completed file must match
+    private String sha256;
+}
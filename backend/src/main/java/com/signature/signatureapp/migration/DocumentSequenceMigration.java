@@ -0,0 +1,33 @@
+package com.signature.signatureapp.migration;
+
+import com.signature.signatureapp.model.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// documents.id moved from IDENTITY to the pooled documents_seq sequence. The sequence starts
+// at 1, so it is moved past the ids already handed out by the identity column. Runs once all
+// singletons exist, before the web server starts taking requests. Safe to re-run.
+@Component
+public class DocumentSequenceMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentSequenceMigration.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM documents", Long.class);
+        Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM documents_seq", Long.class);
+        if (maxId == null || lastValue == null || lastValue >= maxId) {
+            return;
+        }
+        // With increment ID_ALLOCATION_SIZE the next block starts right after maxId
+        jdbcTemplate.queryForObject("SELECT setval('documents_seq', ?)", Long.class, maxId);
+        logger.info("Advanced documents_seq to {} (increment {})", maxId, Document.ID_ALLOCATION_SIZE);
+    }
+}
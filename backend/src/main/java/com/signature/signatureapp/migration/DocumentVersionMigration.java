@@ -0,0 +1,65 @@
+package com.signature.signatureapp.migration;
+
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.service.DocumentVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Creates the version chain of documents uploaded before document_versions existed, one batch
+// per transaction. Safe to re-run: documents with versions no longer match the query.
+@Component
+public class DocumentVersionMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentVersionMigration.class);
+
+    @Value("${migration.document-versions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${migration.document-versions.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentVersionService documentVersionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long migrated = 0;
+        Integer count;
+        do {
+            count = transactionTemplate.execute(status -> migrateBatch());
+            migrated += count == null ? 0 : count;
+        } while (count != null && count > 0);
+
+        if (migrated > 0) {
+            logger.info("Recorded versions of {} existing documents", migrated);
+        }
+    }
+
+    private int migrateBatch() {
+        List<Document> documents = documentRepository.findWithoutVersions(PageRequest.of(0, batchSize));
+        for (Document document : documents) {
+            documentVersionService.backfill(document);
+        }
+        return documents.size();
+    }
+}
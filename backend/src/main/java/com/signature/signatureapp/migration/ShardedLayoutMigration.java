@@ -0,0 +1,95 @@
+package com.signature.signatureapp.migration;
+
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import com.signature.signatureapp.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Moves files from the flat upload directory into the sharded layout while the app is serving.
+// Each run hard-links a batch into its shard directory; the flat names are removed one run
+// later, so a reader that resolved the old path just before the link can still open it.
+// LocalStorageBackend looks in both places meanwhile. Nothing in the database changes.
+@Component
+public class ShardedLayoutMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedLayoutMigration.class);
+
+    @Value("${migration.sharded-layout.enabled:true}")
+    private boolean enabled;
+
+    @Value("${migration.sharded-layout.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private StorageBackend storage;
+
+    // Flat names linked by the previous run, removed by the next one
+    private final List<Path> linked = new ArrayList<>();
+    private long moved;
+    private boolean finished;
+
+    @Scheduled(fixedDelayString = "${migration.sharded-layout.interval-ms:5000}")
+    public void migrateBatch() {
+        if (!enabled || finished || !(storage instanceof LocalStorageBackend)
+                || !((LocalStorageBackend) storage).isSharded()) {
+            return;
+        }
+        LocalStorageBackend local = (LocalStorageBackend) storage;
+        try {
+            for (Path flat : linked) {
+                Files.deleteIfExists(flat);
+            }
+            moved += linked.size();
+            linked.clear();
+
+            List<Path> batch = local.flatFiles(batchSize);
+            if (batch.isEmpty()) {
+                finished = true;
+                if (moved > 0) {
+                    logger.info("Moved {} files into the sharded upload layout", moved);
+                }
+                return;
+            }
+            if (moved == 0) {
+                logger.info("Moving files from {} into the sharded upload layout", local.getRoot());
+            }
+            for (Path flat : batch) {
+                Path target = local.shardedPath(flat.getFileName().toString());
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    link(flat, target);
+                }
+                // An existing sharded copy was written after the switch and wins
+                linked.add(flat);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Sharded layout migration failed, retrying next run: {}", e.getMessage());
+        }
+    }
+
+    private static void link(Path flat, Path target) throws IOException {
+        try {
+            Files.createLink(target, flat);
+        } catch (FileAlreadyExistsException e) {
+            // Written to the sharded layout meanwhile
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // No hard links here: copy next to the target, then rename into place
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.copy(flat, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
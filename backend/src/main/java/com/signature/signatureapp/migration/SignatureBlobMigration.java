@@ -0,0 +1,69 @@
+package com.signature.signatureapp.migration;
+
+import com.signature.signatureapp.model.Signature;
+import com.signature.signatureapp.repository.SignatureRepository;
+import com.signature.signatureapp.service.SignatureBlobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Moves inline signatures.signature_data payloads into the content-addressed
+// signature_blobs table, one batch per transaction. Identical payloads collapse
+// onto a single blob row. Safe to re-run: migrated rows no longer match the query.
+@Component
+public class SignatureBlobMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignatureBlobMigration.class);
+
+    @Value("${migration.signature-blobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${migration.signature-blobs.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private SignatureRepository signatureRepository;
+
+    @Autowired
+    private SignatureBlobService signatureBlobService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long migrated = 0;
+        Integer count;
+        do {
+            count = transactionTemplate.execute(status -> migrateBatch());
+            migrated += count == null ? 0 : count;
+        } while (count != null && count > 0);
+
+        if (migrated > 0) {
+            logger.info("Moved {} inline signature payloads to signature_blobs", migrated);
+        }
+    }
+
+    private int migrateBatch() {
+        List<Signature> signatures = signatureRepository
+                .findBySignatureBlobIsNullAndSignatureDataIsNotNull(PageRequest.of(0, batchSize));
+        for (Signature signature : signatures) {
+            signature.setSignatureBlob(signatureBlobService.store(signature.getSignatureData()));
+            signature.setSignatureData(null);
+        }
+        signatureRepository.saveAll(signatures);
+        return signatures.size();
+    }
+}
@@ -0,0 +1,91 @@
+package com.signature.signatureapp.migration;
+
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import com.signature.signatureapp.storage.StorageBackend;
+import com.signature.signatureapp.storage.StoredObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.List;
+
+// Copies every file the database refers to from the old local upload directory into the
+// configured backend, e.g. once when moving to storage.backend=s3. Off by default; objects that
+// already exist are skipped, so it can be re-run until it reports nothing left to copy.
+@Component
+public class StorageCopyMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageCopyMigration.class);
+
+    private static final String KEYS = "SELECT k FROM ("
+            + "SELECT file_path AS k FROM file_blobs "
+            + "UNION SELECT file_path FROM documents "
+            + "UNION SELECT file_path FROM document_versions WHERE deleted_at IS NULL "
+            + "UNION SELECT file_path FROM templates) keys "
+            + "WHERE k > ? ORDER BY k LIMIT ?";
+
+    @Value("${migration.storage-copy.enabled:false}")
+    private boolean enabled;
+
+    @Value("${migration.storage-copy.batch-size:500}")
+    private int batchSize;
+
+    @Value("${migration.storage-copy.source-dir:${file.upload-dir:uploads}}")
+    private String sourceDir;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // Finds files in both the sharded and the flat layout of the upload directory
+        LocalStorageBackend source = new LocalStorageBackend(Paths.get(sourceDir));
+        long copied = 0;
+        long bytes = 0;
+        long missing = 0;
+        String after = "";
+        List<String> keys;
+        do {
+            keys = jdbcTemplate.queryForList(KEYS, String.class, after, batchSize);
+            for (String key : keys) {
+                after = key;
+                StoredObject file;
+                try {
+                    file = source.stat(key);
+                } catch (IllegalArgumentException e) {
+                    // Key outside the upload directory
+                    continue;
+                }
+                if (storage.stat(key) != null) {
+                    continue;
+                }
+                if (file == null) {
+                    missing++;
+                    logger.warn("No local file for storage key {}", key);
+                    continue;
+                }
+                try (InputStream in = source.read(key)) {
+                    bytes += storage.write(key, in);
+                }
+                copied++;
+            }
+        } while (keys.size() == batchSize);
+
+        logger.info("Copied {} files ({} bytes) from {} to {} storage, {} missing", copied, bytes, source.getRoot(),
+                storage.getName(), missing);
+    }
+}
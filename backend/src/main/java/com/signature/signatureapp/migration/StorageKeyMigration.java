@@ -0,0 +1,79 @@
+package com.signature.signatureapp.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// file_path columns used to hold absolute paths below file.upload-dir; they now hold storage
+// keys relative to that directory. Rewrites old rows in batches before the web server starts
+// taking requests. Paths outside the directory are left alone and reported. Safe to re-run.
+@Component
+public class StorageKeyMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageKeyMigration.class);
+
+    // table -> primary key
+    private static final String[][] TABLES = {
+            { "file_blobs", "hash" },
+            { "documents", "id" },
+            { "document_versions", "id" },
+            { "templates", "id" },
+    };
+
+    @Value("${migration.storage-keys.enabled:true}")
+    private boolean enabled;
+
+    @Value("${migration.storage-keys.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${migration.storage-keys.legacy-root:${storage.local.root:${file.upload-dir:uploads}}}")
+    private String legacyRoot;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        String prefix = legacyRoot(legacyRoot);
+        for (String[] table : TABLES) {
+            long rewritten = 0;
+            int count;
+            do {
+                count = jdbcTemplate.update("UPDATE " + table[0] + " SET file_path = substr(file_path, ?) WHERE "
+                        + table[1] + " IN (SELECT " + table[1] + " FROM " + table[0]
+                        + " WHERE left(file_path, ?) = ? LIMIT ?)",
+                        prefix.length() + 1, prefix.length(), prefix, batchSize);
+                rewritten += count;
+            } while (count > 0);
+
+            Long outside = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM " + table[0] + " WHERE file_path LIKE '/%'", Long.class);
+            if (rewritten > 0) {
+                logger.info("Rewrote {} {} file paths to storage keys", rewritten, table[0]);
+                if ("documents".equals(table[0])) {
+                    // Document lists show the key, so cached lists are stale now
+                    jdbcTemplate.update("UPDATE user_change_counters SET version = version + 1, updated_at = now()");
+                }
+            }
+            if (outside != null && outside > 0) {
+                logger.warn("{} {} rows still point at absolute paths outside {}", outside, table[0], prefix);
+            }
+        }
+    }
+
+    // Absolute upload directory with a trailing separator, as it appears in old rows
+    static String legacyRoot(String root) {
+        Path path = Paths.get(root).toAbsolutePath().normalize();
+        return path.toString().endsWith("/") ? path.toString() : path + "/";
+    }
+}
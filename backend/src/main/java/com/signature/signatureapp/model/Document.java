@@ -8,31 +8,56 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_user_upload", columnList = "user_id, upload_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Document {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence: one round trip hands out a block of ids, so inserts can be JDBC-batched
+    // (IDENTITY forces an immediate insert per row). See DocumentSequenceMigration.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_seq")
+    @SequenceGenerator(name = "documents_seq", sequenceName = "documents_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
     private String name;
 
+    // Storage key of the current version, see StorageBackend
     @Column(nullable = false)
     private String filePath;
 
     @Column(nullable = false)
     private String fileType;
 
+    // SHA-256 of the uploaded content, see FileBlob
+    @Column(length = 64)
+    private String contentHash;
+
+    // Page geometry extracted at upload, see PageGeometryService; null for non-PDF files
+    private Integer pageCount;
+
+    @Column(columnDefinition = "TEXT")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String pageGeometry;
+
     @Column(nullable = false)
     private LocalDateTime uploadTime;
 
     @Column(nullable = false, columnDefinition = "varchar(255) default 'pending'")
     private String status;
 
+    // Optimistic lock: a save based on a stale read fails instead of overwriting the newer version
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @com.fasterxml.jackson.annotation.JsonIgnore
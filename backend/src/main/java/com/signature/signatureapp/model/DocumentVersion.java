@@ -0,0 +1,75 @@
+package com.signature.signatureapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One file a document has pointed at. Version 1 is the upload (a shared FileBlob, kept for the
+// document's lifetime); every signing adds the next version. A superseded signed version becomes
+// "expiring" and VersionCollector deletes its file once expiresAt has passed.
+@Entity
+@Table(name = "document_versions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_document_versions_number", columnNames = { "document_id", "version_number" })
+}, indexes = {
+        @Index(name = "idx_document_versions_expiry", columnList = "retention, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentVersion {
+
+    public static final String RETENTION_PERMANENT = "permanent";
+    public static final String RETENTION_CURRENT = "current";
+    public static final String RETENTION_EXPIRING = "expiring";
+
+    public static final String KIND_ORIGINAL = "original";
+    public static final String KIND_SIGNED = "signed";
+
+    // Pooled like documents_seq, so bulk uploads can batch their version rows too
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "document_versions_seq")
+    @SequenceGenerator(name = "document_versions_seq", sequenceName = "document_versions_seq",
+            allocationSize = Document.ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", nullable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private Document document;
+
+    @Column(nullable = false)
+    private int versionNumber;
+
+    @Column(nullable = false, length = 16)
+    private String kind;
+
+    @Column(nullable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String filePath;
+
+    @Column(nullable = false)
+    private long size;
+
+    // permanent / current / expiring, see the constants above
+    @Column(nullable = false, length = 16)
+    private String retention;
+
+    // Set when the version is superseded; the file may be collected after this
+    private LocalDateTime expiresAt;
+
+    // Set once the collector removed the file
+    private LocalDateTime deletedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
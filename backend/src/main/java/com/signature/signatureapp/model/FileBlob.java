@@ -0,0 +1,51 @@
+package com.signature.signatureapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "file_blobs", indexes = {
+        @Index(name = "idx_file_blobs_optimized", columnList = "optimized_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileBlob {
+
+    // SHA-256 (hex) of the file content
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // Storage key, <hash><ext>, or <hash>_optimized.pdf once PdfOptimizationService rewrote the file
+    @Column(nullable = false)
+    private String filePath;
+
+    @Column(nullable = false)
+    private long size;
+
+    // Number of documents/templates pointing at this content
+    @Column(nullable = false)
+    private long refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set once the optimizer looked at the file, whether or not it replaced it
+    private LocalDateTime optimizedAt;
+
+    // Size as uploaded, when the file was replaced by an optimized version
+    private Long originalSize;
+
+    // Key of the uploaded file while it is kept after an optimization; deleted after a grace period
+    private String originalPath;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
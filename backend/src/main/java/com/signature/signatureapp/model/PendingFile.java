@@ -0,0 +1,28 @@
+package com.signature.signatureapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A storage key written before the row that refers to it is committed, e.g. a signed copy. The
+// row is removed by the transaction that starts referring to the file, so one that outlives
+// versions.gc.orphan-min-age-hours marks a file a failed signing left behind; see VersionCollector.
+@Entity
+@Table(name = "pending_files", indexes = {
+        @Index(name = "idx_pending_files_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingFile {
+
+    @Id
+    @Column(length = 1024)
+    private String storageKey;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
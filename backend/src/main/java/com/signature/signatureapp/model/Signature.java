@@ -32,8 +32,14 @@ public class Signature {
     private float height;
     private int pageNumber;
 
+    // Payload is stored once per distinct content in signature_blobs
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "signature_hash")
+    private SignatureBlob signatureBlob;
+
+    // Legacy inline payload, moved to signature_blobs by SignatureBlobMigration
     @Column(columnDefinition = "TEXT")
-    private String signatureData; // Store base64 signature image or text
+    private String signatureData;
 
     private LocalDateTime signedAt;
 
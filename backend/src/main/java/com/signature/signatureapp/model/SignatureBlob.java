@@ -0,0 +1,35 @@
+package com.signature.signatureapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "signature_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignatureBlob {
+
+    // SHA-256 (hex) of the signature payload
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String data; // base64 signature image or text
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
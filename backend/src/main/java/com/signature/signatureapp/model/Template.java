@@ -21,7 +21,11 @@ public class Template {
     private String name;
 
     @Column(nullable = false)
-    private String filePath; // Path to the master PDF
+    private String filePath; // Storage key of the master PDF
+
+    // SHA-256 of the uploaded content, see FileBlob
+    @Column(length = 64)
+    private String contentHash;
 
     @Column(nullable = false)
     private LocalDateTime createdAt;
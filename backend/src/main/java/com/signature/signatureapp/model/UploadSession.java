@@ -0,0 +1,68 @@
+package com.signature.signatureapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A resumable upload in progress. Chunks are written in place into the staging file, which is
+// moved into storage when the upload is completed; see ChunkedUploadService.
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_updated", columnList = "updated_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private User user;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private long totalSize;
+
+    // Chunks are accepted only at this offset, so the prefix up to here is complete
+    @Column(nullable = false)
+    private long receivedBytes;
+
+    // Expected SHA-256, checked when the upload is completed; optional
+    @Column(length = 64)
+    private String sha256;
+
+    // Local scratch file on the storage volume; the session only resumes on the instance holding it
+    @Column(nullable = false, length = 1024)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String stagingPath;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Last chunk received; idle sessions are removed by ChunkedUploadService.cleanup
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        LocalDateTime now = LocalDateTime.now();
+        if (this.createdAt == null) {
+            this.createdAt = now;
+        }
+        if (this.updatedAt == null) {
+            this.updatedAt = now;
+        }
+    }
+}
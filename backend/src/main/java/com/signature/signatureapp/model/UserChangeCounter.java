@@ -0,0 +1,27 @@
+package com.signature.signatureapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Per-user version of everything the document list and dashboard show, bumped by ChangeVersionService
+// in the same transaction as each change. Kept apart from user_stats, which is rebuilt from scratch.
+@Entity
+@Table(name = "user_change_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangeCounter {
+
+    @Id
+    private Long userId;
+
+    // Only ever increases
+    @Column(nullable = false)
+    private long version;
+
+    private LocalDateTime updatedAt;
+}
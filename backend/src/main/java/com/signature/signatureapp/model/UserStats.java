@@ -0,0 +1,35 @@
+package com.signature.signatureapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Per-user dashboard rollup, maintained on upload/sign events by StatsService
+@Entity
+@Table(name = "user_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStats {
+
+    @Id
+    private Long userId;
+
+    private long documentsUploaded;
+    private long documentsCompleted;
+
+    // Sum of upload-to-completion times, for the average turnaround
+    private long turnaroundSecondsTotal;
+
+    // Turnaround histogram
+    private long turnaroundUnderHour;
+    private long turnaroundUnderDay;
+    private long turnaroundUnderThreeDays;
+    private long turnaroundUnderWeek;
+    private long turnaroundOverWeek;
+
+    private LocalDateTime updatedAt;
+}
@@ -1,12 +1,48 @@
 package com.signature.signatureapp.repository;
 
+import com.signature.signatureapp.dto.DocumentSummary;
 import com.signature.signatureapp.model.Document;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, Long> {
     List<Document> findByUserId(Long userId);
+
+    boolean existsByFilePath(String filePath);
+
+    // Moves documents still on one file to another with the same content (see PdfOptimizationService)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Document d SET d.filePath = :to WHERE d.filePath = :from")
+    int repointFile(@Param("from") String from, @Param("to") String to);
+
+    // Documents created before version tracking, see DocumentVersionMigration
+    @Query("SELECT d FROM Document d WHERE NOT EXISTS "
+            + "(SELECT v.id FROM DocumentVersion v WHERE v.document = d) ORDER BY d.id")
+    List<Document> findWithoutVersions(Pageable pageable);
+
+    // Identical content has identical geometry, so duplicate uploads skip the PDF parse
+    Optional<Document> findFirstByContentHashAndPageGeometryIsNotNull(String contentHash);
+
+    // Keyset pagination over idx_documents_user_upload, newest first
+    @Query("SELECT new com.signature.signatureapp.dto.DocumentSummary(d.id, d.name, d.fileType, d.status, d.uploadTime) "
+            + "FROM Document d WHERE d.user.id = :userId AND (:status IS NULL OR d.status = :status) "
+            + "ORDER BY d.uploadTime DESC, d.id DESC")
+    List<DocumentSummary> findSummariesFirstPage(@Param("userId") Long userId, @Param("status") String status,
+            Pageable pageable);
+
+    @Query("SELECT new com.signature.signatureapp.dto.DocumentSummary(d.id, d.name, d.fileType, d.status, d.uploadTime) "
+            + "FROM Document d WHERE d.user.id = :userId AND (:status IS NULL OR d.status = :status) "
+            + "AND (d.uploadTime < :uploadTime OR (d.uploadTime = :uploadTime AND d.id < :id)) "
+            + "ORDER BY d.uploadTime DESC, d.id DESC")
+    List<DocumentSummary> findSummariesAfter(@Param("userId") Long userId, @Param("status") String status,
+            @Param("uploadTime") LocalDateTime uploadTime, @Param("id") Long id, Pageable pageable);
 }
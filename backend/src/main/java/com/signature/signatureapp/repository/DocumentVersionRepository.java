@@ -0,0 +1,36 @@
+package com.signature.signatureapp.repository;
+
+import com.signature.signatureapp.model.DocumentVersion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DocumentVersionRepository extends JpaRepository<DocumentVersion, Long> {
+
+    List<DocumentVersion> findByDocumentIdOrderByVersionNumberAsc(Long documentId);
+
+    Optional<DocumentVersion> findFirstByDocumentIdOrderByVersionNumberDesc(Long documentId);
+
+    // Superseded versions whose grace period is over, oldest first (idx_document_versions_expiry)
+    List<DocumentVersion> findByRetentionAndExpiresAtBeforeAndDeletedAtIsNullOrderByExpiresAtAsc(String retention,
+            LocalDateTime now, Pageable pageable);
+
+    // Any other live version still pointing at the file
+    boolean existsByFilePathAndDeletedAtIsNullAndIdNot(String filePath, Long id);
+
+    boolean existsByFilePathAndDeletedAtIsNull(String filePath);
+
+    // Version 1 keeps the file as uploaded, see PdfOptimizationService
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DocumentVersion v SET v.filePath = :to, v.size = :size "
+            + "WHERE v.filePath = :from AND v.kind <> 'original'")
+    int repointFile(@Param("from") String from, @Param("to") String to, @Param("size") long size);
+}
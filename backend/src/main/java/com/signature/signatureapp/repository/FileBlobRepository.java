@@ -0,0 +1,64 @@
+package com.signature.signatureapp.repository;
+
+import com.signature.signatureapp.model.FileBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    // Registers one more reference, creating the row on first upload of this content
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO file_blobs (hash, file_path, size, ref_count, created_at) "
+            + "VALUES (:hash, :filePath, :size, 1, now()) "
+            + "ON CONFLICT (hash) DO UPDATE SET ref_count = file_blobs.ref_count + 1", nativeQuery = true)
+    int acquire(@Param("hash") String hash, @Param("filePath") String filePath, @Param("size") long size);
+
+    // Waits for an acquire of the same hash that has not committed yet
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM FileBlob b WHERE b.hash = :hash")
+    Optional<FileBlob> findForUpdate(@Param("hash") String hash);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE file_blobs SET ref_count = ref_count - 1 WHERE hash = :hash", nativeQuery = true)
+    int release(@Param("hash") String hash);
+
+    // PDFs the optimizer has not looked at yet, oldest first
+    @Query("SELECT b FROM FileBlob b WHERE b.optimizedAt IS NULL AND b.refCount > 0 "
+            + "AND LOWER(b.filePath) LIKE '%.pdf' ORDER BY b.createdAt")
+    List<FileBlob> findUnoptimized(Pageable pageable);
+
+    // Replaced uploads past the cutoff that no live document version still keeps
+    @Query("SELECT b FROM FileBlob b WHERE b.originalPath IS NOT NULL AND b.optimizedAt < :cutoff "
+            + "AND NOT EXISTS (SELECT v FROM DocumentVersion v WHERE v.filePath = b.originalPath "
+            + "AND v.deletedAt IS NULL) ORDER BY b.optimizedAt")
+    List<FileBlob> findRetirableOriginals(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Points the blob at its optimized file, unless the blob changed in the meantime
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE FileBlob b SET b.filePath = :optimized, b.size = :size, b.originalPath = :original, "
+            + "b.originalSize = b.size, b.optimizedAt = :now WHERE b.hash = :hash AND b.filePath = :original")
+    int swapOptimized(@Param("hash") String hash, @Param("original") String original,
+            @Param("optimized") String optimized, @Param("size") long size, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE FileBlob b SET b.optimizedAt = :now WHERE b.hash = :hash")
+    int markOptimized(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE FileBlob b SET b.originalPath = NULL WHERE b.hash = :hash AND b.originalPath = :original")
+    int clearOriginal(@Param("hash") String hash, @Param("original") String original);
+
+    @Query("SELECT COALESCE(SUM(b.originalSize - b.size), 0) FROM FileBlob b WHERE b.originalSize IS NOT NULL")
+    long sumSavedBytes();
+}
@@ -0,0 +1,15 @@
+package com.signature.signatureapp.repository;
+
+import com.signature.signatureapp.model.PendingFile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PendingFileRepository extends JpaRepository<PendingFile, String> {
+
+    List<PendingFile> findByCreatedAtBeforeOrderByCreatedAtAsc(LocalDateTime cutoff, Pageable pageable);
+}
@@ -0,0 +1,18 @@
+package com.signature.signatureapp.repository;
+
+import com.signature.signatureapp.model.SignatureBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SignatureBlobRepository extends JpaRepository<SignatureBlob, String> {
+
+    // Concurrent signers may store the same payload; the first insert wins
+    @Modifying
+    @Query(value = "INSERT INTO signature_blobs (hash, data, size, created_at) VALUES (:hash, :data, :size, now()) "
+            + "ON CONFLICT (hash) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash, @Param("data") String data, @Param("size") long size);
+}
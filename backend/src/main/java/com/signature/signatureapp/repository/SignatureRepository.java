@@ -1,6 +1,7 @@
 package com.signature.signatureapp.repository;
 
 import com.signature.signatureapp.model.Signature;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +10,6 @@ import java.util.List;
 @Repository
 public interface SignatureRepository extends JpaRepository<Signature, Long> {
     List<Signature> findByDocumentId(Long documentId);
+
+    List<Signature> findBySignatureBlobIsNullAndSignatureDataIsNotNull(Pageable pageable);
 }
@@ -3,6 +3,9 @@ package com.signature.signatureapp.repository;
 import com.signature.signatureapp.model.Template;
 import com.signature.signatureapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +13,8 @@ import java.util.List;
 @Repository
 public interface TemplateRepository extends JpaRepository<Template, Long> {
     List<Template> findByCreatedBy(User user);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Template t SET t.filePath = :to WHERE t.filePath = :from")
+    int repointFile(@Param("from") String from, @Param("to") String to);
 }
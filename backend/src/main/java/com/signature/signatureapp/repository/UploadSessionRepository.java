@@ -0,0 +1,27 @@
+package com.signature.signatureapp.repository;
+
+import com.signature.signatureapp.model.UploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Moves the offset forward only if nobody else did in the meantime
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.receivedBytes = :received, s.updatedAt = :now "
+            + "WHERE s.id = :id AND s.receivedBytes = :offset")
+    int advance(@Param("id") String id, @Param("offset") long offset, @Param("received") long received,
+            @Param("now") LocalDateTime now);
+
+    List<UploadSession> findByUpdatedAtBeforeOrderByUpdatedAtAsc(LocalDateTime cutoff, Pageable pageable);
+}
@@ -0,0 +1,35 @@
+package com.signature.signatureapp.repository;
+
+import com.signature.signatureapp.model.UserChangeCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserChangeCounterRepository extends JpaRepository<UserChangeCounter, Long> {
+
+    @Query("SELECT c.version FROM UserChangeCounter c WHERE c.userId = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_change_counters (user_id, version, updated_at) VALUES (:userId, 1, now()) "
+            + "ON CONFLICT (user_id) DO UPDATE SET version = user_change_counters.version + 1, updated_at = now()",
+            nativeQuery = true)
+    int bump(@Param("userId") Long userId);
+
+    // Owners of the documents stored under filePath
+    @Modifying
+    @Query(value = "INSERT INTO user_change_counters (user_id, version, updated_at) "
+            + "SELECT DISTINCT d.user_id, 1, now() FROM documents d WHERE d.file_path = :filePath "
+            + "ON CONFLICT (user_id) DO UPDATE SET version = user_change_counters.version + 1, updated_at = now()",
+            nativeQuery = true)
+    int bumpOwnersOf(@Param("filePath") String filePath);
+
+    @Modifying
+    @Query(value = "UPDATE user_change_counters SET version = version + 1, updated_at = now()", nativeQuery = true)
+    int bumpAll();
+}
@@ -0,0 +1,72 @@
+package com.signature.signatureapp.repository;
+
+import com.signature.signatureapp.model.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+
+    String INSERT_COLUMNS = "INSERT INTO user_stats (user_id, documents_uploaded, documents_completed, "
+            + "turnaround_seconds_total, turnaround_under_hour, turnaround_under_day, turnaround_under_three_days, "
+            + "turnaround_under_week, turnaround_over_week, updated_at) ";
+
+    // Recomputes rollups from documents and the first signature on each document
+    String REBUILD_SELECT = "SELECT d.user_id, count(*), count(*) FILTER (WHERE d.status = 'signed'), "
+            + "coalesce(sum(extract(epoch FROM f.first_signed - d.upload_time)) FILTER (WHERE d.status = 'signed'), 0), "
+            + "count(*) FILTER (WHERE d.status = 'signed' AND f.first_signed - d.upload_time < interval '1 hour'), "
+            + "count(*) FILTER (WHERE d.status = 'signed' AND f.first_signed - d.upload_time >= interval '1 hour' "
+            + "AND f.first_signed - d.upload_time < interval '1 day'), "
+            + "count(*) FILTER (WHERE d.status = 'signed' AND f.first_signed - d.upload_time >= interval '1 day' "
+            + "AND f.first_signed - d.upload_time < interval '3 days'), "
+            + "count(*) FILTER (WHERE d.status = 'signed' AND f.first_signed - d.upload_time >= interval '3 days' "
+            + "AND f.first_signed - d.upload_time < interval '7 days'), "
+            + "count(*) FILTER (WHERE d.status = 'signed' AND f.first_signed - d.upload_time >= interval '7 days'), "
+            + "now() "
+            + "FROM documents d LEFT JOIN (SELECT document_id, min(signed_at) AS first_signed FROM signatures "
+            + "GROUP BY document_id) f ON f.document_id = d.id ";
+
+    String REBUILD_CONFLICT = "GROUP BY d.user_id ON CONFLICT (user_id) DO UPDATE SET "
+            + "documents_uploaded = EXCLUDED.documents_uploaded, documents_completed = EXCLUDED.documents_completed, "
+            + "turnaround_seconds_total = EXCLUDED.turnaround_seconds_total, "
+            + "turnaround_under_hour = EXCLUDED.turnaround_under_hour, "
+            + "turnaround_under_day = EXCLUDED.turnaround_under_day, "
+            + "turnaround_under_three_days = EXCLUDED.turnaround_under_three_days, "
+            + "turnaround_under_week = EXCLUDED.turnaround_under_week, "
+            + "turnaround_over_week = EXCLUDED.turnaround_over_week, updated_at = EXCLUDED.updated_at";
+
+    @Modifying
+    @Query(value = INSERT_COLUMNS + "VALUES (:userId, :count, 0, 0, 0, 0, 0, 0, 0, now()) "
+            + "ON CONFLICT (user_id) DO UPDATE SET documents_uploaded = user_stats.documents_uploaded + :count, "
+            + "updated_at = now()", nativeQuery = true)
+    int incrementUploaded(@Param("userId") Long userId, @Param("count") int count);
+
+    // bucket: 0 = < 1h, 1 = < 1d, 2 = < 3d, 3 = < 7d, 4 = longer
+    @Modifying
+    @Query(value = INSERT_COLUMNS + "VALUES (:userId, 0, 1, :seconds, "
+            + "CASE WHEN :bucket = 0 THEN 1 ELSE 0 END, CASE WHEN :bucket = 1 THEN 1 ELSE 0 END, "
+            + "CASE WHEN :bucket = 2 THEN 1 ELSE 0 END, CASE WHEN :bucket = 3 THEN 1 ELSE 0 END, "
+            + "CASE WHEN :bucket = 4 THEN 1 ELSE 0 END, now()) "
+            + "ON CONFLICT (user_id) DO UPDATE SET documents_completed = user_stats.documents_completed + 1, "
+            + "turnaround_seconds_total = user_stats.turnaround_seconds_total + :seconds, "
+            + "turnaround_under_hour = user_stats.turnaround_under_hour + EXCLUDED.turnaround_under_hour, "
+            + "turnaround_under_day = user_stats.turnaround_under_day + EXCLUDED.turnaround_under_day, "
+            + "turnaround_under_three_days = user_stats.turnaround_under_three_days "
+            + "+ EXCLUDED.turnaround_under_three_days, "
+            + "turnaround_under_week = user_stats.turnaround_under_week + EXCLUDED.turnaround_under_week, "
+            + "turnaround_over_week = user_stats.turnaround_over_week + EXCLUDED.turnaround_over_week, "
+            + "updated_at = now()", nativeQuery = true)
+    int incrementCompleted(@Param("userId") Long userId, @Param("seconds") long seconds, @Param("bucket") int bucket);
+
+    @Modifying
+    @Query(value = INSERT_COLUMNS + REBUILD_SELECT + "WHERE d.user_id = :userId " + REBUILD_CONFLICT,
+            nativeQuery = true)
+    int rebuild(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = INSERT_COLUMNS + REBUILD_SELECT + REBUILD_CONFLICT, nativeQuery = true)
+    int rebuildAll();
+}
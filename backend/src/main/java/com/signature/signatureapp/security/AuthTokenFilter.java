@@ -1,6 +1,9 @@
 package com.signature.signatureapp.security;
 
 import com.signature.signatureapp.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,6 +15,9 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
@@ -23,45 +29,79 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+    // Endpoints that never need a principal, matching the permitAll rules in SecurityConfig
+    private static final RequestMatcher PUBLIC_PATHS = new OrRequestMatcher(
+            new AntPathRequestMatcher("/**", "OPTIONS"),
+            new AntPathRequestMatcher("/api/auth/**"),
+            new AntPathRequestMatcher("/api/test/**"),
+            new AntPathRequestMatcher("/livez"),
+            new AntPathRequestMatcher("/readyz"),
+            new AntPathRequestMatcher("/actuator/health/**"),
+            new AntPathRequestMatcher("/actuator/prometheus"),
+            new AntPathRequestMatcher("/error"));
+
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PUBLIC_PATHS.matches(request);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        try {
-            String requestURI = request.getRequestURI();
-            System.out.println("Processing request: " + requestURI);
-
+        // Times token verification only (timer auth.filter{outcome}), not the rest of the chain
+        Observation observation = Observation.createNotStarted("auth.filter", observationRegistry)
+                .contextualName("jwt authentication")
+                .start();
+        String outcome = "anonymous";
+        try (Observation.Scope scope = observation.openScope()) {
             String jwt = parseJwt(request);
             if (jwt != null) {
-                System.out.println("JWT found in header: " + jwt.substring(0, Math.min(jwt.length(), 10)) + "...");
-                if (jwtUtils.validateJwtToken(jwt)) {
-                    String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                    System.out.println("JWT valid. Username: " + username);
-
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    System.out.println("User loaded: " + userDetails.getUsername());
+                // Signature and expiry are verified exactly once here
+                Claims claims = jwtUtils.parseJwtClaims(jwt);
+                if (claims != null) {
+                    UserDetails userDetails = principalFrom(claims);
 
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    authentication.setDetails(detailsSource.buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
+                    outcome = "authenticated";
                 } else {
-                    System.out.println("JWT validation failed!");
+                    outcome = "invalid";
+                    logger.debug("JWT validation failed for {}", request.getRequestURI());
                 }
             } else {
-                System.out.println("No JWT found in request to " + requestURI);
+                logger.debug("No JWT found in request to {}", request.getRequestURI());
             }
         } catch (Exception e) {
-            logger.error("Cannot set user authentication: {}", e);
-            System.out.println("Exception in AuthTokenFilter: " + e.getMessage());
-            e.printStackTrace();
+            outcome = "error";
+            observation.error(e);
+            logger.error("Cannot set user authentication: {}", e.getMessage(), e);
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
         }
 
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails principalFrom(Claims claims) {
+        Number userId = claims.get(JwtUtils.CLAIM_USER_ID, Number.class);
+        if (userId != null) {
+            return UserDetailsImpl.fromClaims(userId.longValue(), claims.get(JwtUtils.CLAIM_NAME, String.class),
+                    claims.getSubject());
+        }
+        // Tokens issued before the id/name claims existed still need the database
+        return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -3,6 +3,8 @@ package com.signature.signatureapp.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,49 +16,87 @@ import java.util.Date;
 @Component
 public class JwtUtils {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+
+    // Claims carrying the principal, so authenticated requests need no user lookup
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_NAME = "name";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
+    // Built once on first use; the parser is immutable and thread-safe
+    private volatile Key key;
+    private volatile JwtParser parser;
+
     public String generateJwtToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
                 .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs));
+        if (userPrincipal instanceof UserDetailsImpl) {
+            UserDetailsImpl user = (UserDetailsImpl) userPrincipal;
+            builder.claim(CLAIM_USER_ID, user.getId())
+                    .claim(CLAIM_NAME, user.getName());
+        }
+        return builder.signWith(key(), SignatureAlgorithm.HS256).compact();
     }
 
     private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        Key current = key;
+        if (current == null) {
+            synchronized (this) {
+                if (key == null) {
+                    key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+                }
+                current = key;
+            }
+        }
+        return current;
+    }
+
+    private JwtParser parser() {
+        JwtParser current = parser;
+        if (current == null) {
+            synchronized (this) {
+                if (parser == null) {
+                    parser = Jwts.parserBuilder().setSigningKey(key()).build();
+                }
+                current = parser;
+            }
+        }
+        return current;
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return parser().parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseJwtClaims(authToken) != null;
+    }
+
+    // Verifies the token and returns its claims in a single parse, or null if it is invalid
+    public Claims parseJwtClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            return parser().parseClaimsJws(authToken).getBody();
         } catch (MalformedJwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
+            logger.warn("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
-            System.err.println("JWT token is expired: " + e.getMessage());
+            logger.debug("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
-            System.err.println("JWT token is unsupported: " + e.getMessage());
+            logger.warn("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            System.err.println("JWT claims string is empty: " + e.getMessage());
+            logger.warn("JWT claims string is empty: {}", e.getMessage());
         } catch (Exception e) {
-            System.err.println("JWT validation error: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("JWT validation error: {}", e.getMessage(), e);
         }
 
-        return false;
+        return null;
     }
 }
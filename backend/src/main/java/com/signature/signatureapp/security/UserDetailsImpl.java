@@ -39,6 +39,11 @@ public class UserDetailsImpl implements UserDetails {
                 List.of()); // No roles for now
     }
 
+    // Principal rebuilt from verified JWT claims, without loading the user row
+    public static UserDetailsImpl fromClaims(Long id, String name, String email) {
+        return new UserDetailsImpl(id, name, email, null, List.of());
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
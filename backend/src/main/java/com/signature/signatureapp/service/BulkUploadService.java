@@ -0,0 +1,262 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.dto.BulkUploadItem;
+import com.signature.signatureapp.dto.BulkUploadResult;
+import com.signature.signatureapp.dto.DocumentEvent;
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.DocumentVersion;
+import com.signature.signatureapp.model.FileBlob;
+import com.signature.signatureapp.model.User;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.repository.DocumentVersionRepository;
+import com.signature.signatureapp.repository.UserRepository;
+import com.signature.signatureapp.util.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+// Ingests many files in one request: files are hashed and stored in parallel on the
+// uploadExecutor, then the Document rows are inserted in JDBC batches (documents_seq hands
+// out ids in blocks, so Hibernate can batch them). Failures are reported per file.
+@Service
+public class BulkUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkUploadService.class);
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentVersionRepository documentVersionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FileBlobService fileBlobService;
+
+    @Autowired
+    private PageGeometryService pageGeometryService;
+
+    @Autowired
+    private DocumentVersionService documentVersionService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private DocumentEventService documentEventService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("uploadExecutor")
+    private ThreadPoolTaskExecutor uploadExecutor;
+
+    @Value("${upload.bulk.max-files:1000}")
+    private int maxFiles;
+
+    @Value("${upload.max-file-bytes:10485760}")
+    private long maxFileBytes;
+
+    // Keep in line with spring.jpa.properties.hibernate.jdbc.batch_size
+    @Value("${upload.bulk.insert-batch-size:50}")
+    private int insertBatchSize;
+
+    @FunctionalInterface
+    private interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    // Outcome of storing one file, before its row is inserted
+    private static final class Entry {
+        final String fileName;
+        final String contentType;
+        final long size;
+        final ContentSource source;
+        Document document;
+        long storedSize;
+        String error;
+
+        Entry(String fileName, String contentType, long size, ContentSource source) {
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.size = size;
+            this.source = source;
+        }
+    }
+
+    public BulkUploadResult storeFiles(List<MultipartFile> files, Long userId) {
+        if (files.size() > maxFiles) {
+            throw new IllegalArgumentException("At most " + maxFiles + " files per request");
+        }
+        List<Entry> entries = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            String name = file.getOriginalFilename() == null ? "" : StringUtils.cleanPath(file.getOriginalFilename());
+            entries.add(new Entry(name, file.getContentType(), file.getSize(), file::getInputStream));
+        }
+        return ingest(entries, userId);
+    }
+
+    // ZIP entries are read straight from the spooled archive, several at a time
+    public BulkUploadResult storeArchive(MultipartFile archive, Long userId) throws IOException {
+        Path spooled = Files.createTempFile("bulk-", ".zip");
+        try {
+            archive.transferTo(spooled);
+            try (ZipFile zip = new ZipFile(spooled.toFile())) {
+                List<Entry> entries = new ArrayList<>();
+                for (ZipEntry zipEntry : Collections.list(zip.entries())) {
+                    String name = StringUtils.getFilename(zipEntry.getName());
+                    if (zipEntry.isDirectory() || name == null || name.isEmpty() || name.startsWith(".")
+                            || zipEntry.getName().startsWith("__MACOSX/")) {
+                        continue;
+                    }
+                    if (entries.size() == maxFiles) {
+                        throw new IllegalArgumentException("At most " + maxFiles + " files per archive");
+                    }
+                    entries.add(new Entry(name, null, zipEntry.getSize(), () -> zip.getInputStream(zipEntry)));
+                }
+                return ingest(entries, userId);
+            } catch (ZipException e) {
+                throw new IllegalArgumentException("Not a valid ZIP archive", e);
+            }
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    private BulkUploadResult ingest(List<Entry> entries, Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id " + userId));
+
+        // 1. Store content in parallel; the request thread waits for every file
+        List<Future<?>> futures = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            futures.add(uploadExecutor.submit(() -> store(entry, user)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                entries.get(i).error = e.getCause().getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                entries.get(i).error = "Interrupted";
+            }
+        }
+
+        // 2. Insert the rows of stored files in batches, one transaction per batch
+        List<Entry> stored = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.error == null && entry.document != null) {
+                stored.add(entry);
+            }
+        }
+        int inserted = 0;
+        for (int from = 0; from < stored.size(); from += insertBatchSize) {
+            List<Entry> batch = stored.subList(from, Math.min(from + insertBatchSize, stored.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Document> documents = new ArrayList<>(batch.size());
+                    List<DocumentVersion> versions = new ArrayList<>(batch.size());
+                    for (Entry entry : batch) {
+                        documents.add(entry.document);
+                        versions.add(documentVersionService.original(entry.document, entry.storedSize));
+                    }
+                    documentRepository.saveAll(documents);
+                    documentVersionRepository.saveAll(versions);
+                    changeVersionService.bump(userId);
+                    documentEventService.publish(userId, DocumentEvent.bulkCreated(batch.size()));
+                    documentRepository.flush();
+                });
+                inserted += batch.size();
+            } catch (RuntimeException e) {
+                logger.warn("Bulk insert of {} documents failed: {}", batch.size(), e.getMessage());
+                for (Entry entry : batch) {
+                    entry.error = "Could not save document";
+                    entry.document.setId(null);
+                    releaseQuietly(entry.document.getContentHash());
+                }
+            }
+        }
+        statsService.recordUploads(userId, inserted);
+
+        // 3. Per-file report in request order
+        List<BulkUploadItem> items = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (entry.error == null) {
+                items.add(new BulkUploadItem(entry.fileName, entry.document.getId(), "stored", null));
+            } else {
+                items.add(new BulkUploadItem(entry.fileName, null, "failed", entry.error));
+            }
+        }
+        return new BulkUploadResult(inserted, entries.size() - inserted, items);
+    }
+
+    private void store(Entry entry, User user) {
+        if (entry.fileName.isEmpty() || entry.fileName.contains("..")) {
+            entry.error = "Invalid file name";
+            return;
+        }
+        if (entry.size > maxFileBytes) {
+            entry.error = "File exceeds the limit of " + maxFileBytes + " bytes";
+            return;
+        }
+
+        // Sizes from archive headers can lie, so the stream itself is bounded too
+        FileBlob blob;
+        try (InputStream in = new BoundedInputStream(entry.source.open(), maxFileBytes)) {
+            blob = fileBlobService.store(in, DocumentService.storedExtension(entry.fileName));
+        } catch (IOException e) {
+            entry.error = e.getMessage();
+            return;
+        }
+
+        try {
+            Document document = new Document();
+            document.setName(entry.fileName);
+            document.setFileType(DocumentService.contentType(entry.fileName, entry.contentType));
+            document.setFilePath(blob.getFilePath());
+            document.setContentHash(blob.getHash());
+            document.setUser(user);
+            pageGeometryService.index(document);
+            entry.storedSize = blob.getSize();
+            entry.document = document;
+        } catch (RuntimeException e) {
+            releaseQuietly(blob.getHash());
+            throw e;
+        }
+    }
+
+    private void releaseQuietly(String hash) {
+        try {
+            fileBlobService.release(hash);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not release blob {}: {}", hash, e.getMessage());
+        }
+    }
+}
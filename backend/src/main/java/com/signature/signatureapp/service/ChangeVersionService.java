@@ -0,0 +1,43 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.repository.UserChangeCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Per-user change counter behind the ETags of the document list and dashboard endpoints.
+// Every change a list could show bumps it in the change's own transaction, so answering a poll
+// with 304 is one primary-key lookup on user_change_counters. Read the ETag before the data it
+// describes: a change committing in between then only costs the client one more full response.
+@Service
+public class ChangeVersionService {
+
+    @Autowired
+    private UserChangeCounterRepository userChangeCounterRepository;
+
+    @Transactional
+    public void bump(Long userId) {
+        userChangeCounterRepository.bump(userId);
+    }
+
+    // For changes made by file rather than by document (storage moves, optimization)
+    @Transactional
+    public void bumpOwnersOf(String filePath) {
+        userChangeCounterRepository.bumpOwnersOf(filePath);
+    }
+
+    @Transactional
+    public void bumpAll() {
+        userChangeCounterRepository.bumpAll();
+    }
+
+    public long current(Long userId) {
+        return userChangeCounterRepository.findVersion(userId).orElse(0L);
+    }
+
+    // Weak, since it names the state of the list rather than exact bytes; includes the user so a
+    // browser shared by two accounts never revalidates one user's list with the other's tag
+    public String etag(Long userId) {
+        return "W/\"" + userId + "-" + current(userId) + "\"";
+    }
+}
@@ -0,0 +1,307 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.UploadSession;
+import com.signature.signatureapp.repository.UploadSessionRepository;
+import com.signature.signatureapp.repository.UserRepository;
+import com.signature.signatureapp.storage.StorageBackend;
+import com.signature.signatureapp.util.Digests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resumable uploads: a session owns a staging file on the storage volume, chunks are written into
+// it in place at their offset, and completion moves the file into the blob store (a rename for
+// local storage). Chunks must arrive in order, so the bytes before receivedBytes are always
+// complete and a client that lost its connection resumes from there.
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private PdfMemoryBudget memoryBudget;
+
+    @Value("${upload.chunked.max-file-bytes:2147483648}")
+    private long maxFileBytes;
+
+    @Value("${upload.chunked.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    @Value("${upload.chunked.cleanup-batch-size:100}")
+    private int cleanupBatchSize;
+
+    // Sessions with a chunk or completion in progress on this instance
+    private final Set<String> busy = ConcurrentHashMap.newKeySet();
+
+    // SHA-256 of each session's received prefix, so completion does not have to reread the file.
+    // Lost on restart; completion then hashes the staging file instead.
+    private final Map<String, RunningDigest> digests = new ConcurrentHashMap<>();
+
+    private static final class RunningDigest {
+        final MessageDigest digest = Digests.sha256();
+        long offset;
+    }
+
+    public UploadSession create(Long userId, String fileName, String contentType, long size, String sha256)
+            throws IOException {
+        String name = fileName == null ? "" : StringUtils.cleanPath(fileName);
+        if (name.isEmpty() || name.contains("..") || name.contains("/")) {
+            throw new IllegalArgumentException("Invalid file name");
+        }
+        // A PDF the memory budget can never admit could be stored but not signed, previewed or indexed
+        long limit = isPdf(name, contentType) ? Math.min(maxFileBytes, memoryBudget.getMaxFileBytes()) : maxFileBytes;
+        if (size <= 0 || size > limit) {
+            throw new IllegalArgumentException("Size must be between 1 and " + limit + " bytes");
+        }
+        if (sha256 != null && !sha256.isBlank() && !sha256.matches("[0-9a-fA-F]{64}")) {
+            throw new IllegalArgumentException("sha256 must be 64 hex digits");
+        }
+
+        Path staging = storage.newTempFile("chunked-", ".tmp");
+        try {
+            UploadSession session = new UploadSession();
+            session.setId(UUID.randomUUID().toString());
+            session.setUser(userRepository.getReferenceById(userId));
+            session.setFileName(name);
+            session.setContentType(contentType);
+            session.setTotalSize(size);
+            session.setSha256(sha256 == null || sha256.isBlank() ? null : sha256.toLowerCase());
+            session.setStagingPath(staging.toString());
+            return uploadSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(staging);
+            throw e;
+        }
+    }
+
+    // null when the session does not exist or belongs to another user
+    public UploadSession getSession(String id, Long userId) {
+        UploadSession session = uploadSessionRepository.findById(id).orElse(null);
+        if (session == null || !session.getUser().getId().equals(userId)) {
+            return null;
+        }
+        return session;
+    }
+
+    // Writes the body at offset, which must equal receivedBytes. If the connection drops midway
+    // the bytes that did arrive are kept. Returns the new receivedBytes.
+    public long writeChunk(UploadSession session, long offset, InputStream body) throws IOException {
+        acquire(session);
+        try {
+            long received = session.getReceivedBytes();
+            if (offset != received) {
+                throw new UploadConflictException("Expected a chunk at offset " + received, received);
+            }
+            Path staging = Paths.get(session.getStagingPath());
+            RunningDigest running = runningDigest(session.getId(), offset);
+            long remaining = session.getTotalSize() - offset;
+
+            long written = 0;
+            IOException failure = null;
+            try (FileChannel channel = FileChannel.open(staging, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+                int n;
+                while ((n = body.read(buffer)) != -1) {
+                    if (n > remaining - written) {
+                        throw new IllegalArgumentException(
+                                "Chunk runs past the declared size of " + session.getTotalSize() + " bytes");
+                    }
+                    wrapped.clear().limit(n);
+                    while (wrapped.hasRemaining()) {
+                        channel.write(wrapped, offset + written + wrapped.position());
+                    }
+                    if (running != null) {
+                        running.digest.update(buffer, 0, n);
+                    }
+                    written += n;
+                }
+            } catch (IOException e) {
+                // Client went away; keep what was written so far
+                failure = e;
+            } catch (RuntimeException e) {
+                digests.remove(session.getId());
+                throw e;
+            }
+
+            if (written > 0) {
+                if (uploadSessionRepository.advance(session.getId(), offset, offset + written,
+                        LocalDateTime.now()) == 0) {
+                    digests.remove(session.getId());
+                    throw new UploadConflictException("Upload session changed concurrently", received);
+                }
+                session.setReceivedBytes(offset + written);
+                if (running != null) {
+                    running.offset = offset + written;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return session.getReceivedBytes();
+        } finally {
+            busy.remove(session.getId());
+        }
+    }
+
+    // Verifies the digest and registers the document. A mismatch discards the session; any other
+    // failure keeps it while the staging file is left, so complete can be retried, and cleanup
+    // removes it if it never is.
+    public Document complete(UploadSession session, String sha256) throws IOException {
+        acquire(session);
+        try {
+            if (session.getReceivedBytes() != session.getTotalSize()) {
+                throw new UploadConflictException("Upload is incomplete: " + session.getReceivedBytes() + " of "
+                        + session.getTotalSize() + " bytes received", session.getReceivedBytes());
+            }
+            Path staging = Paths.get(session.getStagingPath());
+            String actual = digestOf(session.getId(), staging, session.getTotalSize());
+            String expected = sha256 != null && !sha256.isBlank() ? sha256 : session.getSha256();
+            if (expected != null && !expected.equalsIgnoreCase(actual)) {
+                discard(session);
+                throw new IllegalArgumentException("SHA-256 mismatch: received content hashes to " + actual);
+            }
+
+            Document document;
+            try {
+                document = documentService.storeStaged(staging, actual, session.getTotalSize(),
+                        session.getFileName(), session.getContentType(), session.getUser().getId());
+            } catch (RuntimeException e) {
+                if (!Files.exists(staging)) {
+                    discard(session);
+                }
+                throw e;
+            }
+            discard(session);
+            return document;
+        } finally {
+            busy.remove(session.getId());
+        }
+    }
+
+    public void cancel(UploadSession session) throws IOException {
+        acquire(session);
+        try {
+            discard(session);
+        } finally {
+            busy.remove(session.getId());
+        }
+    }
+
+    // Removes sessions that received nothing for session-ttl-hours, with their staging files
+    @Scheduled(initialDelayString = "${upload.chunked.cleanup-interval-ms:900000}",
+            fixedDelayString = "${upload.chunked.cleanup-interval-ms:900000}")
+    public void cleanup() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(sessionTtlHours);
+        int removed = 0;
+        try {
+            List<UploadSession> expired;
+            int before;
+            do {
+                before = removed;
+                expired = uploadSessionRepository.findByUpdatedAtBeforeOrderByUpdatedAtAsc(cutoff,
+                        PageRequest.of(0, cleanupBatchSize));
+                for (UploadSession session : expired) {
+                    if (!busy.add(session.getId())) {
+                        continue;
+                    }
+                    try {
+                        discard(session);
+                        removed++;
+                    } finally {
+                        busy.remove(session.getId());
+                    }
+                }
+            } while (expired.size() == cleanupBatchSize && removed > before);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Upload session cleanup failed: {}", e.getMessage(), e);
+        }
+        if (removed > 0) {
+            logger.info("Removed {} abandoned upload sessions", removed);
+        }
+    }
+
+    private void acquire(UploadSession session) {
+        if (!busy.add(session.getId())) {
+            throw new UploadConflictException("Another request is using this upload", session.getReceivedBytes());
+        }
+    }
+
+    // The running digest if it covers exactly [0, offset), starting one for the first chunk
+    private RunningDigest runningDigest(String id, long offset) {
+        if (offset == 0) {
+            RunningDigest running = new RunningDigest();
+            digests.put(id, running);
+            return running;
+        }
+        RunningDigest running = digests.get(id);
+        if (running == null || running.offset != offset) {
+            digests.remove(id);
+            return null;
+        }
+        return running;
+    }
+
+    private String digestOf(String id, Path staging, long size) throws IOException {
+        // digest() resets the running state, so a retried complete hashes the file instead
+        RunningDigest running = digests.remove(id);
+        if (running != null && running.offset == size) {
+            return Digests.toHex(running.digest.digest());
+        }
+        MessageDigest digest = Digests.sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(staging)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return Digests.toHex(digest.digest());
+    }
+
+    private static boolean isPdf(String fileName, String contentType) {
+        return "application/pdf".equalsIgnoreCase(contentType) || fileName.toLowerCase().endsWith(".pdf");
+    }
+
+    private void discard(UploadSession session) throws IOException {
+        digests.remove(session.getId());
+        uploadSessionRepository.deleteById(session.getId());
+        Files.deleteIfExists(Paths.get(session.getStagingPath()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.storage.StorageBackend;
+import com.signature.signatureapp.storage.StoredObject;
+import com.signature.signatureapp.util.Digests;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// SHA-256 of stored files. Content-addressed uploads are already named after their digest;
+// other files (signed versions) are hashed once and remembered by key, size and mtime.
+@Service
+public class ContentDigestService {
+
+    private static final int MAX_CACHED_DIGESTS = 10_000;
+
+    @Autowired
+    private StorageBackend storage;
+
+    private final Map<String, String> digestCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED_DIGESTS;
+        }
+    };
+
+    public String digest(String key, String contentHash) throws IOException {
+        String fileName = StringUtils.getFilename(key);
+        // Only the file stored as uploaded is named <contentHash><ext>; signed and optimized files differ
+        if (contentHash != null && fileName != null
+                && StringUtils.stripFilenameExtension(fileName).equals(contentHash)) {
+            return contentHash;
+        }
+        StoredObject object = storage.stat(key);
+        if (object == null) {
+            throw new NoSuchFileException(key);
+        }
+        return digest(object);
+    }
+
+    public String digest(StoredObject object) throws IOException {
+        String cacheKey = object.getKey() + "|" + object.getSize() + "|" + object.getLastModified();
+        synchronized (digestCache) {
+            String cached = digestCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        MessageDigest digest = Digests.sha256();
+        try (InputStream in = storage.read(object.getKey())) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        String hash = Digests.toHex(digest.digest());
+        synchronized (digestCache) {
+            digestCache.put(cacheKey, hash);
+        }
+        return hash;
+    }
+}
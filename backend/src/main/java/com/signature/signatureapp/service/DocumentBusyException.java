@@ -0,0 +1,9 @@
+package com.signature.signatureapp.service;
+
+// Thrown by DocumentLocks when another signing of the same document holds it past the lock timeout
+public class DocumentBusyException extends RuntimeException {
+
+    public DocumentBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,321 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.dto.DocumentEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// In-process fan-out of document events to the caller's open event streams (GET /api/docs/events).
+// Streams are async requests, so an idle one holds a socket but no thread. Publishing takes no
+// locks: each subscriber has a bounded queue and at most one drain task on eventExecutor, which
+// is the only thread writing to its response. A subscriber whose queue is full (a client that
+// stopped reading) is evicted and its stream closed; the browser reconnects and refetches. A write
+// still blocked after send-timeout-ms evicts its subscriber too, and eventExecutor gets a thread
+// in place of the stuck one until the write returns, so other streams keep being served.
+// Events only reach streams on the instance that made the change.
+@Service
+public class DocumentEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentEventService.class);
+
+    private static final Message HEARTBEAT = new Message(null, "ping");
+
+    // Subscriber.sendStartedAt while no write is in progress, and once its write was declared stuck
+    private static final long IDLE = 0;
+    private static final long STUCK = -1;
+
+    @Autowired
+    @Qualifier("eventExecutor")
+    private ThreadPoolTaskExecutor eventExecutor;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    // Browsers reconnect after the stream ends, so this only bounds how long one request lives
+    @Value("${events.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${events.sse.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${events.sse.max-subscribers-per-user:16}")
+    private int maxSubscribersPerUser;
+
+    @Value("${events.sse.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${events.sse.max-send-threads:64}")
+    private int maxSendThreads;
+
+    @Value("${events.sse.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    // Writes declared stuck that have not returned yet; guarded by this
+    private int stuckSends;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+
+    // Null when the user already has max-subscribers-per-user streams open. The first event,
+    // "ready", carries the ETag of the user's document list: a client whose list has a different
+    // tag missed changes while it was disconnected.
+    public SseEmitter subscribe(Long userId) {
+        return subscribe(userId, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(Long userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        // Queued ahead of anything published once the subscriber is visible. The tag is read when
+        // the event is written: with open-in-view, a query on the request thread would hold a
+        // pooled connection for as long as the stream stays open.
+        Supplier<Object> ready = () -> Map.of("etag", changeVersionService.etag(userId));
+        subscriber.enqueue(new Message("ready", ready));
+        AtomicBoolean added = new AtomicBoolean();
+        subscribers.compute(userId, (id, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            if (set.size() < maxSubscribersPerUser) {
+                added.set(set.add(subscriber));
+            }
+            return set;
+        });
+        if (!added.get()) {
+            return null;
+        }
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> close(subscriber, null));
+        emitter.onTimeout(() -> {
+            close(subscriber, null);
+            emitter.complete();
+        });
+        emitter.onError(e -> close(subscriber, null));
+        subscriber.scheduleDrain();
+        return emitter;
+    }
+
+    // Delivered once the current transaction commits, so clients never see a rolled back change
+    public void publish(Long userId, DocumentEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(userId, event);
+                }
+            });
+        } else {
+            dispatch(userId, event);
+        }
+    }
+
+    private void dispatch(Long userId, DocumentEvent event) {
+        Set<Subscriber> set = subscribers.get(userId);
+        if (set == null) {
+            return;
+        }
+        Message message = new Message(event.getType(), event);
+        for (Subscriber subscriber : set) {
+            subscriber.offer(message);
+        }
+    }
+
+    // Keeps proxies from timing out idle streams and finds clients that went away without
+    // closing the connection: their writes fail or their queue fills up
+    @Scheduled(initialDelayString = "${events.sse.heartbeat-interval-ms:15000}",
+            fixedDelayString = "${events.sse.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    // A client that stops reading blocks the write once the socket buffers are full; the write only
+    // fails when the connector's write timeout expires
+    @Scheduled(initialDelayString = "${events.sse.send-timeout-ms:5000}",
+            fixedDelayString = "${events.sse.send-timeout-ms:5000}")
+    public void evictStuck() {
+        long cutoff = System.currentTimeMillis() - sendTimeoutMs;
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                long started = subscriber.sendStartedAt.get();
+                if (started > IDLE && started < cutoff && subscriber.sendStartedAt.compareAndSet(started, STUCK)) {
+                    resizeExecutor(1);
+                    close(subscriber, "blocked");
+                }
+            }
+        }
+    }
+
+    // Keeps send-threads threads free for writes that make progress, up to max-send-threads
+    private synchronized void resizeExecutor(int stuckDelta) {
+        stuckSends += stuckDelta;
+        int size = Math.max(1, Math.min(maxSendThreads, sendThreads + stuckSends));
+        if (size > eventExecutor.getMaxPoolSize()) {
+            eventExecutor.setMaxPoolSize(size);
+            eventExecutor.setCorePoolSize(size);
+        } else {
+            eventExecutor.setCorePoolSize(size);
+            eventExecutor.setMaxPoolSize(size);
+        }
+    }
+
+    public synchronized int getStuckSends() {
+        return stuckSends;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    // reason is null when the stream ended on its own (client gone, timeout); otherwise the
+    // subscriber is evicted and a drain task completes the response
+    private void close(Subscriber subscriber, String reason) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        subscriberCount.decrementAndGet();
+        if (reason != null) {
+            Counter.builder("events.sse.evictions").tag("reason", reason).register(meterRegistry).increment();
+            logger.debug("Evicted event stream of user {}: {}", subscriber.userId, reason);
+            subscriber.scheduleDrain();
+        }
+    }
+
+    private static final class Message {
+        private final String name; // null for a comment line
+        private final Object data; // a Supplier is called on the event thread
+
+        private Message(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        private SseEmitter.SseEventBuilder toEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment((String) data);
+            }
+            return SseEmitter.event().name(name).data(data instanceof Supplier<?> supplier ? supplier.get() : data);
+        }
+    }
+
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final ConcurrentLinkedQueue<Message> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // When the write in progress started, IDLE or STUCK
+        private final AtomicLong sendStartedAt = new AtomicLong(IDLE);
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Message message) {
+            if (closed.get()) {
+                return;
+            }
+            if (enqueue(message)) {
+                scheduleDrain();
+            } else {
+                close(this, "slow");
+            }
+        }
+
+        private boolean enqueue(Message message) {
+            if (queued.incrementAndGet() > bufferSize) {
+                queued.decrementAndGet();
+                return false;
+            }
+            queue.add(message);
+            return true;
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                eventExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                draining.set(false);
+                close(this, "rejected");
+            }
+        }
+
+        // Writes can block on a client that stopped reading; evictStuck replaces the waiting thread
+        private void drain() {
+            boolean writeFailed = false;
+            try {
+                Message message;
+                while (!closed.get() && (message = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    SseEmitter.SseEventBuilder event = message.toEvent();
+                    sendStartedAt.set(System.currentTimeMillis());
+                    try {
+                        emitter.send(event);
+                    } finally {
+                        if (sendStartedAt.getAndSet(IDLE) == STUCK) {
+                            resizeExecutor(-1);
+                        }
+                    }
+                    sent.incrementAndGet();
+                }
+            } catch (IOException e) {
+                writeFailed = true;
+                close(this, "error");
+            } catch (RuntimeException e) {
+                close(this, "error");
+            } finally {
+                draining.set(false);
+            }
+            if (closed.get()) {
+                queue.clear();
+                // After a failed write the container reports the error and onError completes
+                if (!writeFailed) {
+                    emitter.complete();
+                }
+            } else if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
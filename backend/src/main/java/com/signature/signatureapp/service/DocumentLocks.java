@@ -0,0 +1,89 @@
+package com.signature.signatureapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Serializes work on one document without serializing different documents. Document ids map onto
+// a fixed array of fair locks (signing.lock.stripes), so memory stays constant however many
+// documents exist; two documents share a lock only when their ids collide on a stripe. Callers
+// on a hot document wait in arrival order, up to signing.lock.timeout-ms. ReentrantLock parks
+// virtual threads without pinning their carrier.
+@Component
+public class DocumentLocks {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentLocks.class);
+
+    private final ReentrantLock[] stripes;
+
+    @Value("${signing.lock.timeout-ms:30000}")
+    private long timeoutMs = 30000;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong contended = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public DocumentLocks(@Value("${signing.lock.stripes:256}") int stripes) {
+        this.stripes = new ReentrantLock[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+    }
+
+    // Returns the held lock; the caller unlocks it in a finally block
+    public Lock lock(Long documentId) {
+        ReentrantLock lock = stripes[(int) Math.floorMod(documentId, (long) stripes.length)];
+        try {
+            // The timed form honours fairness; plain tryLock() would barge past queued callers
+            if (lock.tryLock(0, TimeUnit.NANOSECONDS)) {
+                acquired.incrementAndGet();
+                return lock;
+            }
+
+            long start = System.nanoTime();
+            if (lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                acquired.incrementAndGet();
+                contended.incrementAndGet();
+                waitNanos.addAndGet(System.nanoTime() - start);
+                return lock;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timedOut.incrementAndGet();
+        logger.warn("Document {} stayed locked for {} ms", documentId, timeoutMs);
+        throw new DocumentBusyException("Document " + documentId + " is being signed, please retry later");
+    }
+
+    public long getAcquired() {
+        return acquired.get();
+    }
+
+    public long getContended() {
+        return contended.get();
+    }
+
+    public double getWaitSeconds() {
+        return waitNanos.get() / 1e9;
+    }
+
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    // Callers currently waiting for any stripe
+    public int getWaiting() {
+        int waiting = 0;
+        for (ReentrantLock lock : stripes) {
+            waiting += lock.getQueueLength();
+        }
+        return waiting;
+    }
+}
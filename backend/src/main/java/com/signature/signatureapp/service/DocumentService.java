@@ -1,26 +1,34 @@
 package com.signature.signatureapp.service;
 
+import com.signature.signatureapp.dto.DocumentEvent;
+import com.signature.signatureapp.dto.DocumentPage;
+import com.signature.signatureapp.dto.DocumentSummary;
 import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.FileBlob;
 import com.signature.signatureapp.model.User;
 import com.signature.signatureapp.repository.DocumentRepository;
 import com.signature.signatureapp.repository.UserRepository;
+import com.signature.signatureapp.storage.StorageBackend;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 
 @Service
 public class DocumentService {
@@ -31,56 +39,110 @@ public class DocumentService {
     @Autowired
     private UserRepository userRepository;
 
-    private final Path fileStorageLocation;
+    @Autowired
+    private FileBlobService fileBlobService;
 
     @Autowired
-    public DocumentService(@Value("${file.upload-dir:uploads}") String uploadDir) {
-        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+    private StatsService statsService;
 
-        try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
-        }
-    }
+    @Autowired
+    private PageGeometryService pageGeometryService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private DocumentVersionService documentVersionService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private DocumentEventService documentEventService;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Per-document limit; the multipart limits are higher to leave room for bulk uploads
+    @Value("${upload.max-file-bytes:10485760}")
+    private long maxFileBytes = 10 * 1024 * 1024;
 
+    @Transactional
     public Document storeFile(MultipartFile file, Long userId) {
         // Normalize file name
         String originalFileName = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-        String fileExtension = "";
-        try {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
-        } catch (Exception e) {
-            fileExtension = "";
-        }
 
-        String fileName = UUID.randomUUID().toString() + fileExtension;
+        // Check if the file's name contains invalid characters
+        if (originalFileName.contains("..")) {
+            throw new RuntimeException("Sorry! Filename contains invalid path sequence " + originalFileName);
+        }
+        if (file.getSize() > maxFileBytes) {
+            throw new RuntimeException("File " + originalFileName + " exceeds the limit of " + maxFileBytes + " bytes");
+        }
+        String fileExtension = storedExtension(originalFileName);
 
         try {
-            // Check if the file's name contains invalid characters
-            if (fileName.contains("..")) {
-                throw new RuntimeException("Sorry! Filename contains invalid path sequence " + fileName);
-            }
-
-            // Copy file to the target location (Replacing existing file with the same name)
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found with id " + userId));
 
-            Document document = new Document();
-            document.setName(originalFileName);
-            document.setFileType(file.getContentType());
-            document.setFilePath(targetLocation.toString());
-            document.setUser(user);
+            // Hashed while streaming to disk; identical content is stored only once
+            FileBlob blob = fileBlobService.store(file.getInputStream(), fileExtension);
+            return register(blob, originalFileName, file.getContentType(), user);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
+        }
+    }
 
-            return documentRepository.save(document);
+    // Registers a completed chunked upload; the staged file is moved into storage, not copied
+    @Transactional
+    public Document storeStaged(Path staged, String hash, long size, String fileName, String contentType,
+            Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id " + userId));
+        try {
+            FileBlob blob = fileBlobService.adopt(staged, hash, size, storedExtension(fileName));
+            return register(blob, fileName, contentType(fileName, contentType), user);
         } catch (IOException ex) {
             throw new RuntimeException("Could not store file " + fileName + ". Please try again!", ex);
         }
     }
 
+    private Document register(FileBlob blob, String fileName, String contentType, User user) {
+        Document document = new Document();
+        document.setName(fileName);
+        document.setFileType(contentType);
+        document.setFilePath(blob.getFilePath());
+        document.setContentHash(blob.getHash());
+        document.setUser(user);
+        pageGeometryService.index(document);
+
+        Document saved = documentRepository.save(document);
+        documentVersionService.recordUpload(saved, blob.getSize());
+        statsService.recordUpload(user.getId());
+        changeVersionService.bump(user.getId());
+        documentEventService.publish(user.getId(),
+                DocumentEvent.created(saved.getId(), saved.getName(), saved.getStatus()));
+        return saved;
+    }
+
+    // Declared content type, else a guess from the file name
+    static String contentType(String fileName, String declared) {
+        if (declared != null && !declared.isBlank()) {
+            return declared;
+        }
+        String guessed = URLConnection.guessContentTypeFromName(fileName);
+        if (guessed == null && fileName.toLowerCase().endsWith(".pdf")) {
+            guessed = "application/pdf";
+        }
+        return guessed != null ? guessed : "application/octet-stream";
+    }
+
+    // Stored files are named after their content hash, only a plain extension is kept
+    static String storedExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot >= 0 ? fileName.substring(dot) : "";
+        return extension.matches("\\.[A-Za-z0-9]{1,10}") ? extension : "";
+    }
+
     public Document getDocument(Long docId) {
         return documentRepository.findById(docId)
                 .orElseThrow(() -> new RuntimeException("Document not found with id " + docId));
@@ -90,17 +152,65 @@ public class DocumentService {
         return documentRepository.findByUserId(userId);
     }
 
-    public Resource loadFileAsResource(String filePath) {
+    // Cursor-based listing: cost depends on the page size, not on how many documents the user has
+    public DocumentPage getDocumentPage(Long userId, String status, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<DocumentSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = documentRepository.findSummariesFirstPage(userId, status, page);
+        } else {
+            String[] position = decodeCursor(cursor);
+            LocalDateTime uploadTime;
+            try {
+                uploadTime = LocalDateTime.parse(position[0]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            rows = documentRepository.findSummariesAfter(userId, status, uploadTime, Long.valueOf(position[1]), page);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            DocumentSummary last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getUploadTime(), last.getId());
+        }
+        return new DocumentPage(rows, nextCursor);
+    }
+
+    private String encodeCursor(LocalDateTime uploadTime, Long id) {
+        String position = uploadTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
         try {
-            Path filePathPath = Paths.get(filePath);
-            Resource resource = new UrlResource(filePathPath.toUri());
-            if (resource.exists()) {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public Resource loadFileAsResource(String key) {
+        try {
+            Path local = storage.localPath(key);
+            if (local != null) {
+                Resource resource = new UrlResource(local.toUri());
+                if (!resource.exists()) {
+                    throw new RuntimeException("File not found " + key);
+                }
                 return resource;
-            } else {
-                throw new RuntimeException("File not found " + filePath);
             }
-        } catch (MalformedURLException ex) {
-            throw new RuntimeException("File not found " + filePath, ex);
+            return new InputStreamResource(storage.read(key));
+        } catch (IOException ex) {
+            throw new RuntimeException("File not found " + key, ex);
         }
     }
 }
@@ -0,0 +1,115 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.DocumentVersion;
+import com.signature.signatureapp.model.FileBlob;
+import com.signature.signatureapp.repository.DocumentVersionRepository;
+import com.signature.signatureapp.repository.FileBlobRepository;
+import com.signature.signatureapp.storage.StorageBackend;
+import com.signature.signatureapp.storage.StoredObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps the version chain of every document. The uploaded original is permanent (its file is a
+// shared FileBlob); the newest signed file is "current"; a signed file that has been superseded
+// expires after versions.retention.superseded-hours and is then reclaimed by VersionCollector.
+// Signing saves incrementally, so the newest signed file still contains every earlier revision.
+@Service
+public class DocumentVersionService {
+
+    @Autowired
+    private DocumentVersionRepository documentVersionRepository;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Value("${versions.retention.superseded-hours:24}")
+    private long supersededHours;
+
+    public List<DocumentVersion> getVersions(Long documentId) {
+        return documentVersionRepository.findByDocumentIdOrderByVersionNumberAsc(documentId);
+    }
+
+    // Version 1 of a new upload; the caller saves it with the document
+    public DocumentVersion original(Document document, long size) {
+        return newVersion(document, 1, DocumentVersion.KIND_ORIGINAL, document.getFilePath(), size,
+                DocumentVersion.RETENTION_PERMANENT);
+    }
+
+    @Transactional
+    public DocumentVersion recordUpload(Document document, long size) {
+        return documentVersionRepository.save(original(document, size));
+    }
+
+    // Called before the document is pointed at signedFilePath
+    @Transactional
+    public DocumentVersion recordSigned(Document document, String signedFilePath) {
+        DocumentVersion latest = documentVersionRepository.findFirstByDocumentIdOrderByVersionNumberDesc(document.getId())
+                .orElse(null);
+        if (latest == null) {
+            List<DocumentVersion> history = backfill(document);
+            latest = history.get(history.size() - 1);
+        }
+        if (DocumentVersion.RETENTION_CURRENT.equals(latest.getRetention())) {
+            supersede(latest);
+        }
+        return documentVersionRepository.save(newVersion(document, latest.getVersionNumber() + 1,
+                DocumentVersion.KIND_SIGNED, signedFilePath, sizeOf(signedFilePath),
+                DocumentVersion.RETENTION_CURRENT));
+    }
+
+    // Versions of a document created before the chain existed: the original blob and, if the
+    // document was signed since, its current file
+    @Transactional
+    public List<DocumentVersion> backfill(Document document) {
+        List<DocumentVersion> history = new ArrayList<>(2);
+        FileBlob blob = document.getContentHash() == null ? null
+                : fileBlobRepository.findById(document.getContentHash()).orElse(null);
+        String originalPath = blob != null ? blob.getFilePath() : document.getFilePath();
+        long originalSize = blob != null ? blob.getSize() : sizeOf(originalPath);
+        history.add(newVersion(document, 1, DocumentVersion.KIND_ORIGINAL, originalPath, originalSize,
+                DocumentVersion.RETENTION_PERMANENT));
+        if (!originalPath.equals(document.getFilePath())) {
+            history.add(newVersion(document, 2, DocumentVersion.KIND_SIGNED, document.getFilePath(),
+                    sizeOf(document.getFilePath()), DocumentVersion.RETENTION_CURRENT));
+        }
+        return documentVersionRepository.saveAll(history);
+    }
+
+    private void supersede(DocumentVersion version) {
+        version.setRetention(DocumentVersion.RETENTION_EXPIRING);
+        version.setExpiresAt(LocalDateTime.now().plusHours(supersededHours));
+        documentVersionRepository.save(version);
+    }
+
+    private static DocumentVersion newVersion(Document document, int number, String kind, String filePath, long size,
+            String retention) {
+        DocumentVersion version = new DocumentVersion();
+        version.setDocument(document);
+        version.setVersionNumber(number);
+        version.setKind(kind);
+        version.setFilePath(filePath);
+        version.setSize(size);
+        version.setRetention(retention);
+        return version;
+    }
+
+    private long sizeOf(String key) {
+        try {
+            StoredObject object = storage.stat(key);
+            return object != null ? object.getSize() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
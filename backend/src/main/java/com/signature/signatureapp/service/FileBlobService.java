@@ -0,0 +1,167 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.FileBlob;
+import com.signature.signatureapp.repository.FileBlobRepository;
+import com.signature.signatureapp.storage.StorageBackend;
+import com.signature.signatureapp.util.Digests;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+// Content-addressed file store: every distinct upload is written to storage once under the key
+// <sha256><ext> and shared by all documents/templates with the same bytes.
+@Service
+public class FileBlobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileBlobService.class);
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Autowired
+    private StorageBackend storage;
+
+    // Streams the content to a scratch file while hashing it, then either moves it into the
+    // store as a new blob or drops it in favour of the existing copy. The caller holds one reference.
+    @Transactional
+    public FileBlob store(InputStream content, String fileExtension) throws IOException {
+        Path tempFile = storage.newTempFile("upload-", ".tmp");
+        try {
+            MessageDigest digest = Digests.sha256();
+            long size;
+            long started = System.nanoTime();
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                size = Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            recordCopy(size, System.nanoTime() - started);
+            String hash = Digests.toHex(digest.digest());
+            return register(tempFile, hash, size, fileExtension);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // Takes over a complete file that was already hashed (a finished chunked upload): it is moved
+    // into the store, or deleted when the content is stored already. The caller holds one reference.
+    // A failure before the move leaves the file to the caller, who may retry.
+    @Transactional
+    public FileBlob adopt(Path file, String hash, long size, String fileExtension) throws IOException {
+        FileBlob blob = register(file, hash, size, fileExtension);
+        Files.deleteIfExists(file);
+        return blob;
+    }
+
+    private FileBlob register(Path file, String hash, long size, String fileExtension) throws IOException {
+        String key = hash + fileExtension;
+        FileBlob existing = fileBlobRepository.findById(hash).orElse(null);
+        if (existing == null) {
+            storage.importFile(key, file);
+            fileBlobRepository.acquire(hash, key, size);
+        } else {
+            fileBlobRepository.acquire(hash, existing.getFilePath(), size);
+        }
+
+        // The acquire holds the row lock until commit, and release deletes files only while
+        // holding it, so the file checked here stays
+        FileBlob blob = fileBlobRepository.findById(hash)
+                .orElseThrow(() -> new RuntimeException("File blob not found " + hash));
+        if (storage.stat(blob.getFilePath()) == null) {
+            // Row survived but the file went missing, point it at the fresh copy
+            if (Files.exists(file)) {
+                storage.importFile(key, file);
+            }
+            blob.setFilePath(key);
+            blob.setSize(size);
+            blob.setOptimizedAt(null);
+            blob.setOriginalSize(null);
+            blob.setOriginalPath(null);
+            blob = fileBlobRepository.saveAndFlush(blob);
+        }
+        return blob;
+    }
+
+    // upload.copy (time), upload.bytes (size) and upload.throughput (bytes/second per upload)
+    private void recordCopy(long bytes, long nanos) {
+        Timer.builder("upload.copy").register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("upload.bytes").baseUnit("bytes").register(meterRegistry).record(bytes);
+        if (nanos > 0) {
+            DistributionSummary.builder("upload.throughput").baseUnit("bytes.per.second").register(meterRegistry)
+                    .record(bytes * 1_000_000_000.0 / nanos);
+        }
+    }
+
+    // Drops one reference; the file is removed once nothing points at it any more, after the
+    // release committed, so a rollback never leaves a row without its file
+    @Transactional
+    public void release(String hash) throws IOException {
+        if (hash == null) {
+            return;
+        }
+        fileBlobRepository.release(hash);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteIfUnreferenced(hash);
+                }
+            });
+        } else {
+            deleteIfUnreferenced(hash);
+        }
+    }
+
+    // Re-checks the count under the row lock and deletes row and files before releasing it. A
+    // register of the same content meanwhile either raised the count first, or waits and then
+    // finds the file missing and stores it again.
+    private void deleteIfUnreferenced(String hash) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transaction.executeWithoutResult(status -> {
+                FileBlob blob = fileBlobRepository.findForUpdate(hash).orElse(null);
+                if (blob == null || blob.getRefCount() > 0) {
+                    return;
+                }
+                fileBlobRepository.delete(blob);
+                fileBlobRepository.flush();
+                try {
+                    storage.delete(blob.getFilePath());
+                    if (blob.getOriginalPath() != null) {
+                        storage.delete(blob.getOriginalPath());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not delete unreferenced blob {}: {}", hash, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.storage.StorageBackend;
+import com.signature.signatureapp.storage.StoredObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Serves stored files with strong ETags, conditional GET (304) and single byte ranges (206).
+// Files on local disk go out through Tomcat's sendfile when the connector supports it, otherwise
+// through FileChannel.transferTo, so file bytes are never copied through a heap buffer. Objects in
+// a remote store are streamed with a ranged read of just the requested bytes.
+@Service
+public class FileDownloadService {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private ContentDigestService contentDigestService;
+
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Autowired
+    private StorageBackend storage;
+
+    public void serve(String key, String contentType, String fileName, String contentHash,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredObject object = storage.stat(key);
+        if (object == null) {
+            throw new RuntimeException("File not found " + key);
+        }
+
+        long length = object.getSize();
+        long lastModified = object.getLastModified();
+        String etag = "\"" + contentDigestService.digest(key, contentHash) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            countResponse("not_modified");
+            return;
+        }
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            if (length == 0 || range.getRangeStart(length) >= length) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                countResponse("range_not_satisfiable");
+                return;
+            }
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        countResponse(range != null ? "partial" : "full");
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        Path path = storage.localPath(key);
+        if (path == null) {
+            try (InputStream in = storage.read(key, start, count)) {
+                countBytes("stream", in.transferTo(response.getOutputStream()));
+            }
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            countBytes("sendfile", count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+            countBytes("transfer", count - remaining);
+        }
+    }
+
+    private void countResponse(String result) {
+        meterRegistry.counter("download.responses", "result", result).increment();
+    }
+
+    // download.bytes{mode}: body bytes handed to sendfile, written through transferTo or streamed from the store
+    private void countBytes(String mode, long bytes) {
+        Counter.builder("download.bytes").baseUnit("bytes").tag("mode", mode).register(meterRegistry)
+                .increment(bytes);
+    }
+
+    // Only a single range is honoured; multi-range requests get the full body.
+    // A stale If-Range validator also falls back to the full body.
+    private HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                return null;
+            }
+            try {
+                long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+                if (ifRangeDate / 1000 != lastModified / 1000) {
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.signature.signatureapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.signature.signatureapp.dto.DocumentGeometry;
+import com.signature.signatureapp.dto.PageGeometry;
+import com.signature.signatureapp.dto.SignatureRequest;
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.storage.LocalFile;
+import com.signature.signatureapp.storage.StorageBackend;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Page count, MediaBox/CropBox and rotation of every page, extracted once at upload and
+// stored on the document, so placement validation and coordinate conversion never reopen the PDF.
+@Service
+public class PageGeometryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageGeometryService.class);
+
+    public static final String ORIGIN_TOP_LEFT = "top-left";
+    public static final String ORIGIN_BOTTOM_LEFT = "bottom-left";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private PdfMemoryBudget memoryBudget;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    // Fills pageCount/pageGeometry on a new document, reusing the geometry of identical content
+    public void index(Document document) {
+        if (document.getContentHash() != null) {
+            Document twin = documentRepository
+                    .findFirstByContentHashAndPageGeometryIsNotNull(document.getContentHash()).orElse(null);
+            if (twin != null) {
+                document.setPageCount(twin.getPageCount());
+                document.setPageGeometry(twin.getPageGeometry());
+                return;
+            }
+        }
+        if (!isPdf(document)) {
+            return;
+        }
+
+        try {
+            List<PageGeometry> pages;
+            try (LocalFile file = storage.localFile(document.getFilePath())) {
+                pages = extract(file.getPath());
+            }
+            document.setPageCount(pages.size());
+            document.setPageGeometry(encode(pages));
+        } catch (IOException | PdfAdmissionException e) {
+            // Left empty; indexed again on first use
+            logger.warn("Could not read page geometry of {}: {}", document.getName(), e.getMessage());
+        }
+    }
+
+    @Transactional
+    public DocumentGeometry getGeometry(Document document) {
+        if (!ensureIndexed(document)) {
+            throw new IllegalArgumentException("Document " + document.getId() + " has no page geometry");
+        }
+        return new DocumentGeometry(document.getId(), document.getPageCount(), decode(document.getPageGeometry()));
+    }
+
+    // Documents uploaded before the index existed are indexed on first use. False for files
+    // without geometry: not a PDF, or a PDF that could not be read.
+    private boolean ensureIndexed(Document document) {
+        if (document.getPageGeometry() == null) {
+            index(document);
+            if (document.getPageGeometry() == null) {
+                return false;
+            }
+            documentRepository.save(document);
+            // pageCount is part of the listed document
+            changeVersionService.bump(document.getUser().getId());
+        }
+        return true;
+    }
+
+    // Validates page numbers and bounds, and converts top-left placements to PDF user space.
+    // Without geometry, bottom-left placements pass unchecked as they did before the index
+    // existed (PdfService still rejects missing pages); top-left ones cannot be converted.
+    public List<SignatureRequest> normalize(Document document, List<SignatureRequest> placements) {
+        if (!ensureIndexed(document)) {
+            for (SignatureRequest placement : placements) {
+                String origin = placement.getOrigin();
+                if (ORIGIN_TOP_LEFT.equalsIgnoreCase(origin)) {
+                    throw new IllegalArgumentException("Document " + document.getId()
+                            + " has no page geometry, send bottom-left coordinates");
+                } else if (origin != null && !ORIGIN_BOTTOM_LEFT.equalsIgnoreCase(origin)) {
+                    throw new IllegalArgumentException("Unknown origin " + origin);
+                }
+            }
+            return placements;
+        }
+        List<PageGeometry> pages = decode(document.getPageGeometry());
+        List<SignatureRequest> normalized = new ArrayList<>(placements.size());
+        for (SignatureRequest placement : placements) {
+            int pageNumber = placement.getPageNumber();
+            if (pageNumber < 1 || pageNumber > pages.size()) {
+                throw new IllegalArgumentException("Invalid page number " + pageNumber);
+            }
+            PageGeometry page = pages.get(pageNumber - 1);
+
+            SignatureRequest copy = new SignatureRequest();
+            copy.setDocumentId(placement.getDocumentId());
+            copy.setSignatureData(placement.getSignatureData());
+            copy.setPageNumber(pageNumber);
+            copy.setX(placement.getX());
+            copy.setY(placement.getY());
+
+            String origin = placement.getOrigin();
+            if (ORIGIN_TOP_LEFT.equalsIgnoreCase(origin)) {
+                toUserSpace(page, copy, stampHeight(placement.getSignatureData()));
+            } else if (origin != null && !ORIGIN_BOTTOM_LEFT.equalsIgnoreCase(origin)) {
+                throw new IllegalArgumentException("Unknown origin " + origin);
+            }
+
+            float[] mediaBox = page.getMediaBox();
+            if (copy.getX() < mediaBox[0] || copy.getX() > mediaBox[2]
+                    || copy.getY() < mediaBox[1] || copy.getY() > mediaBox[3]) {
+                throw new IllegalArgumentException("Placement is outside page " + pageNumber);
+            }
+            normalized.add(copy);
+        }
+        return normalized;
+    }
+
+    // (x, y) measured from the displayed top-left corner of the crop box -> stamp lower-left
+    // corner in unrotated user space
+    private void toUserSpace(PageGeometry page, SignatureRequest placement, float stampHeight) {
+        float[] crop = page.getCropBox();
+        float x = placement.getX();
+        float y = placement.getY() + stampHeight;
+        float ux;
+        float uy;
+        switch (page.getRotation()) {
+            case 90:
+                ux = crop[0] + y;
+                uy = crop[1] + x;
+                break;
+            case 180:
+                ux = crop[2] - x;
+                uy = crop[1] + y;
+                break;
+            case 270:
+                ux = crop[2] - y;
+                uy = crop[3] - x;
+                break;
+            default:
+                ux = crop[0] + x;
+                uy = crop[3] - y;
+        }
+        placement.setX(ux);
+        placement.setY(uy);
+    }
+
+    private float stampHeight(String signatureData) {
+        return signatureData != null && signatureData.startsWith("data:image")
+                ? PdfService.SIGNATURE_IMAGE_HEIGHT
+                : PdfService.SIGNATURE_FONT_SIZE;
+    }
+
+    public List<PageGeometry> extract(Path file) throws IOException {
+        try (PdfMemoryBudget.Permit permit = memoryBudget.admit(Files.size(file));
+                PDDocument pdf = memoryBudget.load(file.toFile())) {
+            List<PageGeometry> pages = new ArrayList<>(pdf.getNumberOfPages());
+            int pageNumber = 1;
+            for (PDPage page : pdf.getPages()) {
+                int rotation = ((page.getRotation() % 360) + 360) % 360;
+                pages.add(new PageGeometry(pageNumber++, box(page.getMediaBox()), box(page.getCropBox()), rotation));
+            }
+            return pages;
+        }
+    }
+
+    private static float[] box(PDRectangle rectangle) {
+        return new float[] { rectangle.getLowerLeftX(), rectangle.getLowerLeftY(),
+                rectangle.getUpperRightX(), rectangle.getUpperRightY() };
+    }
+
+    private static boolean isPdf(Document document) {
+        return "application/pdf".equalsIgnoreCase(document.getFileType())
+                || document.getFilePath().toLowerCase().endsWith(".pdf");
+    }
+
+    // Stored as one row per page: [mediaBox..., cropBox..., rotation]
+    String encode(List<PageGeometry> pages) {
+        float[][] rows = new float[pages.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            PageGeometry page = pages.get(i);
+            float[] m = page.getMediaBox();
+            float[] c = page.getCropBox();
+            rows[i] = new float[] { m[0], m[1], m[2], m[3], c[0], c[1], c[2], c[3], page.getRotation() };
+        }
+        try {
+            return objectMapper.writeValueAsString(rows);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not encode page geometry", e);
+        }
+    }
+
+    List<PageGeometry> decode(String encoded) {
+        float[][] rows;
+        try {
+            rows = objectMapper.readValue(encoded, float[][].class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not decode page geometry", e);
+        }
+        List<PageGeometry> pages = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            float[] r = rows[i];
+            pages.add(new PageGeometry(i + 1, new float[] { r[0], r[1], r[2], r[3] },
+                    new float[] { r[4], r[5], r[6], r[7] }, (int) r[8]));
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,9 @@
+package com.signature.signatureapp.service;
+
+// Thrown by PdfMemoryBudget when a PDF job cannot be admitted without risking the heap
+public class PdfAdmissionException extends RuntimeException {
+
+    public PdfAdmissionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,175 @@
+package com.signature.signatureapp.service;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps concurrent PDF work inside a fixed share of the heap. Each job's heap cost is estimated
+// from the file size and admitted against a global budget; jobs that do not fit wait in a bounded
+// queue and are rejected when the queue is full or the wait times out. Documents are opened in
+// mixed mode, so stream data beyond the per-document cap spills to a scratch file.
+@Component
+public class PdfMemoryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfMemoryBudget.class);
+
+    private static final long KIB = 1024;
+
+    private final long budgetBytes;
+    private final Semaphore permits;
+
+    @Value("${pdf.memory.max-main-memory-per-document:33554432}")
+    private long maxMainMemoryPerDocument = 32 * 1024 * 1024;
+
+    @Value("${pdf.memory.scratch-dir:}")
+    private String scratchDir = "";
+
+    @Value("${pdf.memory.base-cost-bytes:8388608}")
+    private long baseCostBytes = 8 * 1024 * 1024;
+
+    @Value("${pdf.memory.cost-per-file-byte:1.5}")
+    private double costPerFileByte = 1.5;
+
+    @Value("${pdf.memory.max-queued:20}")
+    private int maxQueued = 20;
+
+    @Value("${pdf.memory.queue-timeout-ms:10000}")
+    private long queueTimeoutMs = 10000;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // budget-bytes <= 0 means budget-fraction of the maximum heap
+    public PdfMemoryBudget(@Value("${pdf.memory.budget-bytes:0}") long budgetBytes,
+            @Value("${pdf.memory.budget-fraction:0.5}") double budgetFraction) {
+        this.budgetBytes = budgetBytes > 0 ? budgetBytes : (long) (Runtime.getRuntime().maxMemory() * budgetFraction);
+        this.permits = new Semaphore((int) Math.min(Integer.MAX_VALUE, this.budgetBytes / KIB), true);
+    }
+
+    public final class Permit implements AutoCloseable {
+        private final int kib;
+        private boolean released;
+
+        private Permit(int kib) {
+            this.kib = kib;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                permits.release(kib);
+            }
+        }
+    }
+
+    // Blocks while the job does not fit; throws PdfAdmissionException instead of overcommitting the heap
+    public Permit admit(long fileSize) {
+        long cost = estimateCost(fileSize);
+        if (cost > budgetBytes) {
+            rejected.incrementAndGet();
+            throw new PdfTooLargeException("Document is too large to process (" + fileSize + " bytes)");
+        }
+        int kib = (int) Math.max(1, cost / KIB);
+
+        try {
+            if (permits.tryAcquire(kib, 0, TimeUnit.MILLISECONDS)) {
+                admitted.incrementAndGet();
+                return new Permit(kib);
+            }
+
+            if (waiting.incrementAndGet() > maxQueued) {
+                waiting.decrementAndGet();
+                rejected.incrementAndGet();
+                throw new PdfAdmissionException("PDF processing is at capacity, please retry later");
+            }
+            queued.incrementAndGet();
+            try {
+                if (permits.tryAcquire(kib, queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    admitted.incrementAndGet();
+                    return new Permit(kib);
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.incrementAndGet();
+        logger.warn("Rejected PDF job of {} bytes after waiting {} ms", fileSize, queueTimeoutMs);
+        throw new PdfAdmissionException("PDF processing is at capacity, please retry later");
+    }
+
+    public long estimateCost(long fileSize) {
+        return baseCostBytes + (long) (fileSize * costPerFileByte);
+    }
+
+    // Largest file whose estimated cost fits the whole budget; admit always rejects bigger ones
+    public long getMaxFileBytes() {
+        return Math.max(0, (long) ((budgetBytes - baseCostBytes) / costPerFileByte));
+    }
+
+    public PDDocument load(File file) throws IOException {
+        return PDDocument.load(file, memoryUsageSetting());
+    }
+
+    private MemoryUsageSetting memoryUsageSetting() throws IOException {
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(maxMainMemoryPerDocument);
+        if (!scratchDir.isBlank()) {
+            File dir = Files.createDirectories(Paths.get(scratchDir)).toFile();
+            setting.setTempDir(dir);
+        }
+        return setting;
+    }
+
+    public long getAdmitted() {
+        return admitted.get();
+    }
+
+    public long getQueued() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public long getAvailableBytes() {
+        return permits.availablePermits() * KIB;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("admitted", getAdmitted());
+        stats.put("queued", getQueued());
+        stats.put("rejected", getRejected());
+        stats.put("waiting", getWaiting());
+        stats.put("budgetBytes", getBudgetBytes());
+        stats.put("availableBytes", getAvailableBytes());
+        return stats;
+    }
+}
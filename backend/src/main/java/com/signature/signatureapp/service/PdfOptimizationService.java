@@ -0,0 +1,246 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.FileBlob;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.repository.DocumentVersionRepository;
+import com.signature.signatureapp.repository.FileBlobRepository;
+import com.signature.signatureapp.repository.TemplateRepository;
+import com.signature.signatureapp.storage.LocalFile;
+import com.signature.signatureapp.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Background stage after upload: stored PDFs are run through PdfOptimizer. The optimized file is
+// written under <hash>_optimized.pdf and only replaces the upload once it reopens with the same
+// page count and is at least min-savings-ratio smaller; the blob, and the documents, signed versions
+// and templates still on the upload, then point at it. Version 1 of a document keeps pointing at the
+// upload, which stays as long as such a version does. Otherwise the uploaded file is kept for
+// original-retention-minutes, so requests that already resolved the old key can finish.
+@Service
+public class PdfOptimizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfOptimizationService.class);
+
+    static final String OPTIMIZED_SUFFIX = "_optimized.pdf";
+
+    @Autowired
+    private PdfOptimizer pdfOptimizer;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentVersionRepository documentVersionRepository;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Value("${pdf.optimize.enabled:false}")
+    private boolean enabled;
+
+    @Value("${pdf.optimize.batch-size:20}")
+    private int batchSize;
+
+    @Value("${pdf.optimize.min-savings-ratio:0.05}")
+    private double minSavingsRatio;
+
+    @Value("${pdf.optimize.original-retention-minutes:60}")
+    private long originalRetentionMinutes;
+
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    @Scheduled(initialDelayString = "${pdf.optimize.interval-ms:30000}",
+            fixedDelayString = "${pdf.optimize.interval-ms:30000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        retireOriginals();
+
+        List<FileBlob> blobs = fileBlobRepository.findUnoptimized(PageRequest.of(0, batchSize));
+        if (blobs.isEmpty()) {
+            return;
+        }
+        int optimized = 0;
+        int unchanged = 0;
+        int failed = 0;
+        long savedBytes = 0;
+        for (FileBlob blob : blobs) {
+            try {
+                long saved = optimize(blob);
+                if (saved > 0) {
+                    optimized++;
+                    savedBytes += saved;
+                } else {
+                    unchanged++;
+                }
+            } catch (PdfTooLargeException e) {
+                // Would never be admitted; retrying every run would only hold up the blobs behind it
+                unchanged++;
+                keep(blob, "skipped", e.getMessage());
+            } catch (PdfAdmissionException e) {
+                // At capacity, picked up again next run
+                logger.debug("Optimization of blob {} deferred: {}", blob.getHash(), e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                count("failed");
+                logger.warn("Could not optimize blob {}: {}", blob.getHash(), e.getMessage());
+                markOptimized(blob);
+            }
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("finishedAt", LocalDateTime.now().toString());
+        report.put("optimized", optimized);
+        report.put("unchanged", unchanged);
+        report.put("failed", failed);
+        report.put("savedBytes", savedBytes);
+        lastRun = report;
+        logger.info("PDF optimization: {} files optimized, {} unchanged, {} failed, {} bytes saved",
+                optimized, unchanged, failed, savedBytes);
+    }
+
+    // Bytes saved, 0 when the upload was kept
+    private long optimize(FileBlob blob) throws IOException {
+        String original = blob.getFilePath();
+        String optimizedKey = blob.getHash() + OPTIMIZED_SUFFIX;
+        Path target = storage.newTempFile("optimize-", ".tmp");
+        try {
+            PdfOptimizer.Result result;
+            int pages;
+            long originalSize;
+            try (LocalFile source = storage.localFile(original)) {
+                originalSize = Files.size(source.getPath());
+                pages = pdfOptimizer.countPages(source.getPath());
+                result = pdfOptimizer.optimize(source.getPath(), target);
+            }
+            if (result.getSkipReason() != null) {
+                return keep(blob, "skipped", result.getSkipReason());
+            }
+            long optimizedSize = Files.size(target);
+            if (optimizedSize > originalSize * (1 - minSavingsRatio)) {
+                return keep(blob, "unchanged", optimizedSize + " of " + originalSize + " bytes");
+            }
+            if (!pdfOptimizer.validate(target, pages)) {
+                count("failed");
+                return keep(blob, "invalid", "validation failed");
+            }
+
+            storage.importFile(optimizedKey, target);
+            Boolean swapped = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (fileBlobRepository.swapOptimized(blob.getHash(), original, optimizedKey, optimizedSize, now) == 0) {
+                    return false;
+                }
+                repoint(original, optimizedKey, optimizedSize);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(swapped)) {
+                // The blob was released or replaced meanwhile
+                storage.delete(optimizedKey);
+                return 0;
+            }
+
+            long saved = originalSize - optimizedSize;
+            count("optimized");
+            Counter.builder("pdf.optimize.saved").baseUnit("bytes").register(meterRegistry).increment(saved);
+            logger.info("Optimized blob {}: {} -> {} bytes ({} images resampled, {} streams compressed, "
+                    + "{} duplicate objects merged)", blob.getHash(), originalSize, optimizedSize,
+                    result.getImagesResampled(), result.getStreamsCompressed(), result.getObjectsDeduplicated());
+            return saved;
+        } finally {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    private long keep(FileBlob blob, String result, String reason) {
+        if (!"invalid".equals(result)) {
+            count(result);
+        }
+        logger.debug("Kept blob {} as uploaded: {}", blob.getHash(), reason);
+        markOptimized(blob);
+        return 0;
+    }
+
+    private void markOptimized(FileBlob blob) {
+        transactionTemplate.executeWithoutResult(
+                status -> fileBlobRepository.markOptimized(blob.getHash(), LocalDateTime.now()));
+    }
+
+    private void repoint(String from, String to, long size) {
+        if (documentRepository.repointFile(from, to) > 0) {
+            changeVersionService.bumpOwnersOf(to);
+        }
+        documentVersionRepository.repointFile(from, to, size);
+        templateRepository.repointFile(from, to);
+    }
+
+    // Deletes uploads replaced more than original-retention-minutes ago. Rows that picked up the old
+    // key while the swap was running are moved over first; uploads a version 1 took meanwhile stay,
+    // and FileBlobService.release removes them with the blob.
+    private void retireOriginals() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(originalRetentionMinutes);
+        for (FileBlob blob : fileBlobRepository.findRetirableOriginals(cutoff, PageRequest.of(0, batchSize))) {
+            String original = blob.getOriginalPath();
+            try {
+                Boolean retired = transactionTemplate.execute(status -> {
+                    repoint(original, blob.getFilePath(), blob.getSize());
+                    if (documentVersionRepository.existsByFilePathAndDeletedAtIsNull(original)) {
+                        return false;
+                    }
+                    fileBlobRepository.clearOriginal(blob.getHash(), original);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(retired) && !original.equals(blob.getFilePath())) {
+                    storage.delete(original);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not delete original {} of blob {}: {}", original, blob.getHash(), e.getMessage());
+            }
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("pdf.optimize.files").tag("result", result).register(meterRegistry).increment();
+    }
+
+    // Last run's counts and the total saved by every optimization so far
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>(lastRun);
+        stats.put("enabled", enabled);
+        stats.put("totalSavedBytes", fileBlobRepository.sumSavedBytes());
+        return stats;
+    }
+}
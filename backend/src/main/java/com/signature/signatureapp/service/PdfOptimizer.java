@@ -0,0 +1,511 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.util.Digests;
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.color.PDCalGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceN;
+import org.apache.pdfbox.pdmodel.graphics.color.PDICCBased;
+import org.apache.pdfbox.pdmodel.graphics.color.PDSeparation;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.util.Matrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Rewrites a PDF to take less space without changing how it looks: images drawn at more than
+// target-dpi are downsampled and stored as JPEG, unfiltered streams are Flate-compressed, and
+// identical streams, fonts and font descriptors are stored once. The full rewrite also drops
+// unreachable objects and incremental-update history. Encrypted and digitally signed files are
+// left alone, since rewriting them would break the encryption or the signatures.
+@Component
+public class PdfOptimizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfOptimizer.class);
+
+    // Images are only resampled when drawn at least this much above the target resolution
+    private static final float DPI_TOLERANCE = 1.1f;
+
+    private static final Set<COSName> SHARED_DICTIONARY_TYPES = Set.of(COSName.FONT, COSName.FONT_DESC);
+
+    @Autowired
+    private PdfMemoryBudget memoryBudget;
+
+    @Value("${pdf.optimize.image-dpi:150}")
+    private int imageDpi = 150;
+
+    @Value("${pdf.optimize.jpeg-quality:0.8}")
+    private float jpegQuality = 0.8f;
+
+    public static final class Result {
+        private final String skipReason;
+        private final int imagesResampled;
+        private final int streamsCompressed;
+        private final int objectsDeduplicated;
+
+        Result(String skipReason, int imagesResampled, int streamsCompressed, int objectsDeduplicated) {
+            this.skipReason = skipReason;
+            this.imagesResampled = imagesResampled;
+            this.streamsCompressed = streamsCompressed;
+            this.objectsDeduplicated = objectsDeduplicated;
+        }
+
+        static Result skipped(String reason) {
+            return new Result(reason, 0, 0, 0);
+        }
+
+        // null when target was written
+        public String getSkipReason() {
+            return skipReason;
+        }
+
+        public int getImagesResampled() {
+            return imagesResampled;
+        }
+
+        public int getStreamsCompressed() {
+            return streamsCompressed;
+        }
+
+        public int getObjectsDeduplicated() {
+            return objectsDeduplicated;
+        }
+    }
+
+    public Result optimize(Path source, Path target) throws IOException {
+        // Stream bytes are held twice while they are re-encoded
+        try (PdfMemoryBudget.Permit permit = memoryBudget.admit(2 * Files.size(source));
+                PDDocument pdf = memoryBudget.load(source.toFile())) {
+            if (pdf.isEncrypted()) {
+                return Result.skipped("encrypted");
+            }
+            if (!pdf.getSignatureDictionaries().isEmpty()) {
+                return Result.skipped("digitally signed");
+            }
+
+            int resampled = resampleImages(pdf);
+            Graph graph = Graph.of(pdf.getDocument().getTrailer());
+            int compressed = compressStreams(graph);
+            int deduplicated = deduplicate(graph);
+            pdf.save(target.toFile());
+            return new Result(null, resampled, compressed, deduplicated);
+        }
+    }
+
+    // Opens the file again and parses every page, so a broken rewrite never replaces the upload
+    public boolean validate(Path optimized, int expectedPages) {
+        try (PdfMemoryBudget.Permit permit = memoryBudget.admit(Files.size(optimized));
+                PDDocument pdf = memoryBudget.load(optimized.toFile())) {
+            if (pdf.getNumberOfPages() != expectedPages) {
+                return false;
+            }
+            for (PDPage page : pdf.getPages()) {
+                new PDFStreamParser(page).parse();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Optimized file {} did not validate: {}", optimized, e.getMessage());
+            return false;
+        }
+    }
+
+    public int countPages(Path file) throws IOException {
+        try (PdfMemoryBudget.Permit permit = memoryBudget.admit(Files.size(file));
+                PDDocument pdf = memoryBudget.load(file.toFile())) {
+            return pdf.getNumberOfPages();
+        }
+    }
+
+    // Images
+
+    private int resampleImages(PDDocument pdf) throws IOException {
+        ImageUsage usage = new ImageUsage();
+        for (PDPage page : pdf.getPages()) {
+            usage.processPage(page);
+            for (PDAnnotation annotation : page.getAnnotations()) {
+                usage.showAnnotation(annotation);
+            }
+        }
+
+        int resampled = 0;
+        for (Map.Entry<COSStream, DrawnImage> entry : usage.images.entrySet()) {
+            DrawnImage drawn = entry.getValue();
+            if (drawn.maxDpi <= imageDpi * DPI_TOLERANCE) {
+                continue;
+            }
+            try {
+                if (resample(pdf, drawn.image, imageDpi / drawn.maxDpi)) {
+                    resampled++;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Left as it is, e.g. JPEG 2000 without a decoder
+                logger.debug("Could not resample image: {}", e.getMessage());
+            }
+        }
+        return resampled;
+    }
+
+    private boolean resample(PDDocument pdf, PDImageXObject image, float scale) throws IOException {
+        COSStream stream = image.getCOSObject();
+        if (image.isStencil() || image.getBitsPerComponent() == 1
+                || stream.getDictionaryObject(COSName.MASK) instanceof COSArray
+                || image.getColorSpace() instanceof PDSeparation || image.getColorSpace() instanceof PDDeviceN) {
+            return false;
+        }
+        COSBase softMask = stream.getDictionaryObject(COSName.SMASK);
+        if (softMask instanceof COSDictionary && ((COSDictionary) softMask).containsKey(COSName.MATTE)) {
+            // Pre-blended image data must keep the mask's dimensions
+            return false;
+        }
+
+        int width = Math.max(1, Math.round(image.getWidth() * scale));
+        int height = Math.max(1, Math.round(image.getHeight() * scale));
+        BufferedImage scaled = scale(image.getOpaqueImage(), width, height, isGray(image.getColorSpace()));
+        PDImageXObject jpeg = JPEGFactory.createFromImage(pdf, scaled, jpegQuality);
+
+        COSStream encoded = jpeg.getCOSObject();
+        if (encoded.getLength() >= stream.getLength()) {
+            return false;
+        }
+        // Rewritten in place, so every page and form that draws the image keeps pointing at it
+        try (InputStream in = encoded.createRawInputStream(); OutputStream out = stream.createRawOutputStream()) {
+            IOUtils.copy(in, out);
+        }
+        stream.setItem(COSName.FILTER, COSName.DCT_DECODE);
+        stream.removeItem(COSName.DECODE_PARMS);
+        stream.removeItem(COSName.DECODE);
+        stream.setInt(COSName.WIDTH, width);
+        stream.setInt(COSName.HEIGHT, height);
+        stream.setInt(COSName.BITS_PER_COMPONENT, 8);
+        stream.setItem(COSName.COLORSPACE, encoded.getItem(COSName.COLORSPACE));
+        return true;
+    }
+
+    // An Indexed palette also has one component, but its entries are colors
+    private static boolean isGray(PDColorSpace colorSpace) {
+        return colorSpace instanceof PDDeviceGray
+                || (colorSpace instanceof PDICCBased || colorSpace instanceof PDCalGray)
+                        && colorSpace.getNumberOfComponents() == 1;
+    }
+
+    // Halves with bilinear filtering until close to the target, which avoids the aliasing of a
+    // single large bilinear step
+    private static BufferedImage scale(BufferedImage source, int width, int height, boolean gray) {
+        int type = gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private static final class DrawnImage {
+        final PDImageXObject image;
+        float maxDpi;
+
+        DrawnImage(PDImageXObject image) {
+            this.image = image;
+        }
+    }
+
+    // Records the highest resolution each image XObject is drawn at, from the CTM at each Do
+    private static final class ImageUsage extends PDFStreamEngine {
+        final Map<COSStream, DrawnImage> images = new IdentityHashMap<>();
+
+        ImageUsage() {
+            addOperator(new Concatenate());
+            addOperator(new DrawObject());
+            addOperator(new SetGraphicsStateParameters());
+            addOperator(new Save());
+            addOperator(new Restore());
+            addOperator(new SetMatrix());
+        }
+
+        @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            if ("Do".equals(operator.getName()) && !operands.isEmpty() && operands.get(0) instanceof COSName) {
+                PDXObject xobject = getResources().getXObject((COSName) operands.get(0));
+                if (xobject instanceof PDImageXObject) {
+                    PDImageXObject image = (PDImageXObject) xobject;
+                    Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+                    float widthInches = Math.abs(ctm.getScalingFactorX()) / 72f;
+                    float heightInches = Math.abs(ctm.getScalingFactorY()) / 72f;
+                    if (widthInches > 0 && heightInches > 0) {
+                        float dpi = Math.max(image.getWidth() / widthInches, image.getHeight() / heightInches);
+                        DrawnImage drawn = images.computeIfAbsent(image.getCOSObject(), k -> new DrawnImage(image));
+                        drawn.maxDpi = Math.max(drawn.maxDpi, dpi);
+                    }
+                    return;
+                }
+            }
+            super.processOperator(operator, operands);
+        }
+    }
+
+    // Streams
+
+    private int compressStreams(Graph graph) throws IOException {
+        int compressed = 0;
+        for (COSStream stream : graph.streams) {
+            if (stream.getFilters() != null || COSName.METADATA.equals(stream.getCOSName(COSName.TYPE))) {
+                // XMP metadata stays readable (PDF/A requires it unfiltered)
+                continue;
+            }
+            byte[] raw;
+            try (InputStream in = stream.createRawInputStream()) {
+                raw = IOUtils.toByteArray(in);
+            }
+            if (raw.length < 64) {
+                continue;
+            }
+            try (OutputStream out = stream.createOutputStream(COSName.FLATE_DECODE)) {
+                out.write(raw);
+            }
+            if (stream.getLength() >= raw.length) {
+                stream.removeItem(COSName.FILTER);
+                try (OutputStream out = stream.createRawOutputStream()) {
+                    out.write(raw);
+                }
+            } else {
+                compressed++;
+            }
+        }
+        return compressed;
+    }
+
+    // Merges indirect objects with identical content: every stream, plus font and font descriptor
+    // dictionaries. Objects are fingerprinted children first, so two fonts that embed identical
+    // font files end up with the same fingerprint once the font files are merged.
+    private int deduplicate(Graph graph) throws IOException {
+        Map<COSBase, COSBase> canonical = new IdentityHashMap<>();
+        Map<COSBase, Integer> ids = new IdentityHashMap<>();
+        Map<String, COSBase> byFingerprint = new HashMap<>();
+        int merged = 0;
+
+        for (COSBase object : graph.indirectPostOrder) {
+            if (!mergeable(object)) {
+                continue;
+            }
+            StringBuilder fingerprint = new StringBuilder();
+            appendFingerprint(fingerprint, object, canonical, ids, 0);
+            if (object instanceof COSStream) {
+                fingerprint.append("|data:").append(hashRaw((COSStream) object));
+            }
+            String key = Digests.sha256Hex(fingerprint.toString());
+            COSBase first = byFingerprint.putIfAbsent(key, object);
+            if (first != null) {
+                canonical.put(object, first);
+                merged++;
+            }
+        }
+        if (merged == 0) {
+            return 0;
+        }
+
+        // Point references at the surviving copy; the duplicates become unreachable and are not written
+        for (COSBase container : graph.containers) {
+            if (container instanceof COSDictionary) {
+                COSDictionary dictionary = (COSDictionary) container;
+                for (COSName name : new ArrayList<>(dictionary.keySet())) {
+                    COSBase replacement = replacement(dictionary.getItem(name), canonical, graph);
+                    if (replacement != null) {
+                        dictionary.setItem(name, replacement);
+                    }
+                }
+            } else {
+                COSArray array = (COSArray) container;
+                for (int i = 0; i < array.size(); i++) {
+                    COSBase replacement = replacement(array.get(i), canonical, graph);
+                    if (replacement != null) {
+                        array.set(i, replacement);
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static boolean mergeable(COSBase object) {
+        if (object instanceof COSStream) {
+            return true;
+        }
+        COSName type = object instanceof COSDictionary ? ((COSDictionary) object).getCOSName(COSName.TYPE) : null;
+        return type != null && SHARED_DICTIONARY_TYPES.contains(type);
+    }
+
+    private static COSBase replacement(COSBase value, Map<COSBase, COSBase> canonical, Graph graph) {
+        if (!(value instanceof COSObject)) {
+            return null;
+        }
+        COSBase target = canonical.get(((COSObject) value).getObject());
+        return target == null ? null : graph.references.get(target);
+    }
+
+    private static void appendFingerprint(StringBuilder out, COSBase value, Map<COSBase, COSBase> canonical,
+            Map<COSBase, Integer> ids, int depth) {
+        if (value instanceof COSObject) {
+            // References compare by (merged) identity
+            COSBase target = ((COSObject) value).getObject();
+            COSBase survivor = canonical.getOrDefault(target, target);
+            out.append("R").append(ids.computeIfAbsent(survivor, k -> ids.size())).append(' ');
+        } else if (value instanceof COSDictionary && depth < 32) {
+            Map<String, COSBase> sorted = new TreeMap<>();
+            for (Map.Entry<COSName, COSBase> entry : ((COSDictionary) value).entrySet()) {
+                if (!(value instanceof COSStream) || !COSName.LENGTH.equals(entry.getKey())) {
+                    sorted.put(entry.getKey().getName(), entry.getValue());
+                }
+            }
+            out.append("<<");
+            for (Map.Entry<String, COSBase> entry : sorted.entrySet()) {
+                out.append('/').append(entry.getKey()).append(' ');
+                appendFingerprint(out, entry.getValue(), canonical, ids, depth + 1);
+            }
+            out.append(">>");
+        } else if (value instanceof COSArray && depth < 32) {
+            out.append('[');
+            for (COSBase item : (COSArray) value) {
+                appendFingerprint(out, item, canonical, ids, depth + 1);
+            }
+            out.append(']');
+        } else if (value instanceof COSString) {
+            out.append('(').append(Digests.toHex(((COSString) value).getBytes())).append(')');
+        } else if (value instanceof COSName) {
+            out.append('/').append(((COSName) value).getName()).append(' ');
+        } else if (value != null) {
+            // Numbers, booleans and null print their value; deeper nesting compares by identity
+            out.append(value instanceof COSDictionary || value instanceof COSArray
+                    ? "@" + ids.computeIfAbsent(value, k -> ids.size()) : value.toString()).append(' ');
+        }
+    }
+
+    private static String hashRaw(COSStream stream) throws IOException {
+        MessageDigest digest = Digests.sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = stream.createRawInputStream()) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return Digests.toHex(digest.digest());
+    }
+
+    // Everything reachable from the trailer, walked without recursion (outline and annotation
+    // chains can be long)
+    private static final class Graph {
+        final List<COSStream> streams = new ArrayList<>();
+        final List<COSBase> containers = new ArrayList<>();
+        final List<COSBase> indirectPostOrder = new ArrayList<>();
+        final Map<COSBase, COSObject> references = new IdentityHashMap<>();
+
+        static Graph of(COSDictionary trailer) {
+            Graph graph = new Graph();
+            Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<Iterator<COSBase>> stack = new ArrayDeque<>();
+            Deque<COSBase> path = new ArrayDeque<>();
+            visited.add(trailer);
+            graph.containers.add(trailer);
+            stack.push(children(trailer));
+            path.push(trailer);
+
+            while (!stack.isEmpty()) {
+                Iterator<COSBase> children = stack.peek();
+                if (!children.hasNext()) {
+                    stack.pop();
+                    COSBase done = path.pop();
+                    if (graph.references.containsKey(done)) {
+                        graph.indirectPostOrder.add(done);
+                    }
+                    continue;
+                }
+                COSBase child = children.next();
+                COSBase object = child;
+                if (child instanceof COSObject) {
+                    object = ((COSObject) child).getObject();
+                    if (object != null) {
+                        graph.references.putIfAbsent(object, (COSObject) child);
+                    }
+                }
+                if (!(object instanceof COSDictionary || object instanceof COSArray) || !visited.add(object)) {
+                    continue;
+                }
+                graph.containers.add(object);
+                if (object instanceof COSStream) {
+                    graph.streams.add((COSStream) object);
+                }
+                stack.push(children(object));
+                path.push(object);
+            }
+            return graph;
+        }
+
+        private static Iterator<COSBase> children(COSBase object) {
+            if (object instanceof COSDictionary) {
+                return new ArrayList<>(((COSDictionary) object).getValues()).iterator();
+            }
+            List<COSBase> items = new ArrayList<>();
+            for (int i = 0; i < ((COSArray) object).size(); i++) {
+                items.add(((COSArray) object).get(i));
+            }
+            return items.iterator();
+        }
+    }
+}
@@ -1,80 +1,271 @@
 package com.signature.signatureapp.service;
 
+import com.signature.signatureapp.dto.SignatureRequest;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 public class PdfService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PdfService.class);
+
+    // Stamp size in points, also used to convert top-left placements (see PageGeometryService)
+    public static final float SIGNATURE_IMAGE_WIDTH = 100;
+    public static final float SIGNATURE_IMAGE_HEIGHT = 50;
+    public static final float SIGNATURE_FONT_SIZE = 14;
+
+    // "incremental" appends only the changed objects to a copy of the original bytes,
+    // "full" re-serializes the whole document
+    @Value("${pdf.save-mode:incremental}")
+    private String saveMode = "incremental";
+
+    @Autowired
+    private SignatureImageCache imageCache;
+
+    @Autowired
+    private PdfMemoryBudget memoryBudget;
+
+    @Autowired
+    private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
     public String addSignatureToPdf(String hiddenFilePath, String signatureDataUrl, float x, float y, int pageNumber)
             throws IOException {
-        System.out.println("PdfService: Adding signature to " + hiddenFilePath + " at page " + pageNumber);
+        SignatureRequest placement = new SignatureRequest();
+        placement.setSignatureData(signatureDataUrl);
+        placement.setX(x);
+        placement.setY(y);
+        placement.setPageNumber(pageNumber);
+        return addSignaturesToPdf(hiddenFilePath, List.of(placement));
+    }
+
+    // Writes the signed copy next to the source
+    public String addSignaturesToPdf(String hiddenFilePath, List<SignatureRequest> placements) throws IOException {
+        String signedFilePath = signedName(hiddenFilePath);
+        addSignaturesToPdf(hiddenFilePath, signedFilePath, placements);
+        return signedFilePath;
+    }
+
+    // Name of the next signed version of a file or storage key; never the name itself, so a
+    // shared upload blob is not overwritten. The previous version's timestamp is replaced rather
+    // than appended to, so keys stay short however often a document is signed.
+    public static String signedName(String name) {
+        String base = name.replaceFirst("(?i)(_signed_\\d+)?\\.pdf$", "");
+        long stamp = System.currentTimeMillis();
+        String signed = base + "_signed_" + stamp + ".pdf";
+        return signed.equals(name) ? base + "_signed_" + (stamp + 1) + ".pdf" : signed;
+    }
+
+    public void addSignaturesToPdf(String hiddenFilePath, String signedFilePath, List<SignatureRequest> placements)
+            throws IOException {
+        if (placements == null || placements.isEmpty()) {
+            throw new IllegalArgumentException("At least one signature placement is required");
+        }
+        logger.debug("Adding {} signature(s) to {}", placements.size(), hiddenFilePath);
 
         File file = new File(hiddenFilePath);
         if (!file.exists()) {
-            System.err.println("PdfService Error: File not found at " + hiddenFilePath);
+            logger.warn("File not found at {}", hiddenFilePath);
             throw new IOException("File not found at " + hiddenFilePath);
         }
 
-        PDDocument document = PDDocument.load(file);
+        // Group by page so every page gets exactly one appended content stream
+        Map<Integer, List<SignatureRequest>> placementsByPage = placements.stream()
+                .collect(Collectors.groupingBy(SignatureRequest::getPageNumber, TreeMap::new, Collectors.toList()));
+
+        try (PdfMemoryBudget.Permit permit = admit(file);
+                PDDocument document = observe("load", () -> load(file))) {
+            int pageCount = document.getNumberOfPages();
+            for (Integer pageNumber : placementsByPage.keySet()) {
+                if (pageNumber < 1 || pageNumber > pageCount) {
+                    throw new IllegalArgumentException("Invalid page number " + pageNumber);
+                }
+            }
+
+            // The same signature image stamped on several fields is embedded once
+            Map<String, PDImageXObject> images = new HashMap<>();
+            Set<COSDictionary> changedObjects = new HashSet<>();
+
+            observe("draw", () -> {
+                for (Map.Entry<Integer, List<SignatureRequest>> entry : placementsByPage.entrySet()) {
+                    PDPage page = document.getPage(entry.getKey() - 1);
+
+                    // PDFBox 2.0.x coordinate system (0,0 is bottom-left).
+                    // x and y are in PDF points (1/72 inch).
+                    try (PDPageContentStream contentStream = new PDPageContentStream(document, page,
+                            PDPageContentStream.AppendMode.APPEND, true, true)) {
+                        for (SignatureRequest placement : entry.getValue()) {
+                            drawSignature(document, contentStream, images, placement);
+                        }
+                    }
+                    collectChangedObjects(page, changedObjects);
+                }
+                return null;
+            });
+
+            // Save as new file
+            logger.debug("Saving signed file to {}", signedFilePath);
+            observe("save", () -> {
+                if ("incremental".equalsIgnoreCase(saveMode) && !document.isEncrypted()) {
+                    saveIncremental(document, file, Paths.get(signedFilePath), changedObjects);
+                } else {
+                    document.save(signedFilePath);
+                }
+                return null;
+            });
+        }
+    }
+
+    // Timer pdf.processing{phase} plus a child span of the current request
+    private <T> T observe(String phase, Observation.CheckedCallable<T, IOException> work) throws IOException {
+        return Observation.createNotStarted("pdf.processing", observationRegistry)
+                .contextualName("pdf " + phase)
+                .lowCardinalityKeyValue("phase", phase)
+                .observeChecked(work);
+    }
+
+    private PdfMemoryBudget.Permit admit(File file) {
+        return memoryBudget != null ? memoryBudget.admit(file.length()) : null;
+    }
+
+    private PDDocument load(File file) throws IOException {
+        return memoryBudget != null ? memoryBudget.load(file) : PDDocument.load(file);
+    }
+
+    private void drawSignature(PDDocument document, PDPageContentStream contentStream,
+            Map<String, PDImageXObject> images, SignatureRequest placement) throws IOException {
+        String signatureDataUrl = placement.getSignatureData();
+        float x = placement.getX();
+        float y = placement.getY();
+
+        if (signatureDataUrl.startsWith("data:image")) {
+            // Processing Base64 Image
+            try {
+                PDImageXObject pdImage = images.get(signatureDataUrl);
+                if (pdImage == null) {
+                    pdImage = createImage(document, signatureDataUrl);
+                    images.put(signatureDataUrl, pdImage);
+                }
+
+                // Draw image. Adjust width/height as needed.
+                contentStream.drawImage(pdImage, x, y, SIGNATURE_IMAGE_WIDTH, SIGNATURE_IMAGE_HEIGHT);
+            } catch (Exception e) {
+                logger.warn("Failed to draw signature image: {}", e.getMessage());
+                throw new IOException("Failed to draw signature image", e);
+            }
+        } else {
+            // Text Signature
+            contentStream.beginText();
+            contentStream.setFont(PDType1Font.HELVETICA_BOLD, SIGNATURE_FONT_SIZE);
+            contentStream.newLineAtOffset(x, y);
+            contentStream.showText(signatureDataUrl); // Assuming simple text
+            contentStream.endText();
+        }
+    }
 
-        if (pageNumber < 1 || pageNumber > document.getNumberOfPages()) {
-            document.close();
-            throw new IllegalArgumentException("Invalid page number");
+    private PDImageXObject createImage(PDDocument document, String signatureDataUrl) throws IOException {
+        if (imageCache != null) {
+            return imageCache.createImage(document, signatureDataUrl);
         }
+        String base64Image = signatureDataUrl.split(",")[1];
+        byte[] imageBytes = Base64.getDecoder().decode(base64Image);
+        return PDImageXObject.createFromByteArray(document, imageBytes, "signature");
+    }
 
-        PDPage page = document.getPage(pageNumber - 1);
-        System.out.println("PdfService: Page loaded. MediaBox: " + page.getMediaBox());
-
-        // PDFBox 2.0.x coordinate system (0,0 is bottom-left).
-        // We might need to flip Y coordinate if frontend sends top-left relative.
-        // For now, assuming Y is correct from frontend or normalized.
-        // x and y are in PDF points (1/72 inch).
-
-        try (PDPageContentStream contentStream = new PDPageContentStream(document, page,
-                PDPageContentStream.AppendMode.APPEND, true, true)) {
-
-            if (signatureDataUrl.startsWith("data:image")) {
-                System.out.println("PdfService: Processing image signature...");
-                // Processing Base64 Image
-                try {
-                    String base64Image = signatureDataUrl.split(",")[1];
-                    byte[] imageBytes = Base64.getDecoder().decode(base64Image);
-                    PDImageXObject pdImage = PDImageXObject.createFromByteArray(document, imageBytes, "signature");
-                    System.out.println("PdfService: Image created. Drawing at " + x + ", " + y);
-
-                    // Draw image. Adjust width/height as needed.
-                    // float scale = 0.5f; // Example scale
-                    contentStream.drawImage(pdImage, x, y, 100, 50); // Hardcoded size for now
-                } catch (Exception e) {
-                    System.err.println("PdfService Error drawing image: " + e.getMessage());
-                    e.printStackTrace();
-                    throw new IOException("Failed to draw signature image", e);
+    private void collectChangedObjects(PDPage page, Set<COSDictionary> changedObjects) {
+        // The page dictionary now references a new /Contents array, and its resources
+        // gained the signature XObject / font entries
+        changedObjects.add(page.getCOSObject());
+        PDResources resources = page.getResources();
+        if (resources != null) {
+            COSDictionary resourcesDict = resources.getCOSObject();
+            changedObjects.add(resourcesDict);
+            for (COSName name : new COSName[] { COSName.XOBJECT, COSName.FONT }) {
+                COSBase entry = resourcesDict.getDictionaryObject(name);
+                if (entry instanceof COSDictionary) {
+                    changedObjects.add((COSDictionary) entry);
                 }
-            } else {
-                // Text Signature
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA_BOLD, 14);
-                contentStream.newLineAtOffset(x, y);
-                contentStream.showText(signatureDataUrl); // Assuming simple text
-                contentStream.endText();
             }
         }
+        for (COSDictionary changed : changedObjects) {
+            changed.setNeedToBeUpdated(true);
+        }
+    }
 
-        // Save as new file
-        String signedFilePath = hiddenFilePath.replace(".pdf", "_signed_" + System.currentTimeMillis() + ".pdf");
-        System.out.println("PdfService: Saving signed file to " + signedFilePath);
-        document.save(signedFilePath);
-        document.close();
+    private void saveIncremental(PDDocument document, File source, Path target, Set<COSDictionary> changedObjects)
+            throws IOException {
+        // Start from a raw copy of the original bytes, then append the update section.
+        // PDFBox streams the original revision ahead of the update, so those bytes are skipped.
+        Files.copy(source.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+        try (OutputStream out = new SkippingOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(target, StandardOpenOption.APPEND)),
+                source.length())) {
+            document.saveIncremental(out, changedObjects);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
 
-        return signedFilePath;
+    // Discards the first {@code skip} bytes written to it
+    static final class SkippingOutputStream extends FilterOutputStream {
+        private long remaining;
+
+        SkippingOutputStream(OutputStream out, long skip) {
+            super(out);
+            this.remaining = skip;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (remaining > 0) {
+                remaining--;
+            } else {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (remaining >= len) {
+                remaining -= len;
+                return;
+            }
+            int skipped = (int) remaining;
+            remaining = 0;
+            out.write(b, off + skipped, len - skipped);
+        }
     }
 }
@@ -0,0 +1,10 @@
+package com.signature.signatureapp.service;
+
+// Thrown by PdfMemoryBudget when a job's estimated cost exceeds the whole budget, so waiting or
+// retrying cannot help
+public class PdfTooLargeException extends PdfAdmissionException {
+
+    public PdfTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,271 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.storage.LocalFile;
+import com.signature.signatureapp.storage.StorageBackend;
+import com.signature.signatureapp.util.Digests;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Renders single PDF pages to images on demand. Renders are cached on disk by
+// (content digest, page, dpi, format), evicted least-recently-used once the cache
+// exceeds its byte budget, and concurrent requests for the same render share one job.
+// A preview is opened under the index lock, so an eviction that deletes the file
+// afterwards does not cut off a response that is still being written.
+@Service
+public class PreviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreviewService.class);
+
+    public static final int MIN_DPI = 18;
+
+    @Autowired
+    private ContentDigestService contentDigestService;
+
+    @Autowired
+    private PdfMemoryBudget memoryBudget;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Value("${preview.max-dpi:300}")
+    private int maxDpi;
+
+    private final Path cacheDirectory;
+    private final long maxCacheBytes;
+
+    // Cached file name -> file size, in access order
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public PreviewService(@Value("${preview.cache-dir:previews}") String cacheDir,
+            @Value("${preview.cache-max-bytes:536870912}") long maxCacheBytes) {
+        this.cacheDirectory = Paths.get(cacheDir).toAbsolutePath().normalize();
+        this.maxCacheBytes = maxCacheBytes;
+
+        try {
+            Files.createDirectories(this.cacheDirectory);
+            loadIndex();
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create the preview cache directory.", ex);
+        }
+    }
+
+    // Open cached render; the caller closes it, or hands the stream to the response
+    public static class Preview implements Closeable {
+        private final InputStream content;
+        private final long size;
+        private final String key;
+        private final String contentType;
+
+        Preview(InputStream content, long size, String key, String contentType) {
+            this.content = content;
+            this.size = size;
+            this.key = key;
+            this.contentType = contentType;
+        }
+
+        public InputStream getContent() {
+            return content;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+
+    public Preview renderPage(Document document, int pageNumber, int dpi, String format) throws IOException {
+        String imageFormat = format.toLowerCase();
+        if (!ImageIO.getImageWritersByFormatName(imageFormat).hasNext()) {
+            throw new IllegalArgumentException("Unsupported preview format " + format);
+        }
+        if (dpi < MIN_DPI || dpi > maxDpi) {
+            throw new IllegalArgumentException("DPI must be between " + MIN_DPI + " and " + maxDpi);
+        }
+        if (pageNumber < 1 || (document.getPageCount() != null && pageNumber > document.getPageCount())) {
+            throw new IllegalArgumentException("Invalid page number " + pageNumber);
+        }
+
+        String source = document.getFilePath();
+        String digest = contentDigestService.digest(source, document.getContentHash());
+        String key = Digests.sha256Hex(digest + "|" + pageNumber + "|" + dpi + "|" + imageFormat);
+        Path target = cacheDirectory.resolve(key + "." + imageFormat);
+        String contentType = "image/" + imageFormat;
+
+        String fileName = target.getFileName().toString();
+        while (true) {
+            Preview cached = open(fileName, key, contentType);
+            if (cached != null) {
+                return cached;
+            }
+
+            // Only the first caller renders; the others wait for the same result
+            CompletableFuture<Void> render = new CompletableFuture<>();
+            CompletableFuture<Void> existing = inFlight.putIfAbsent(key, render);
+            if (existing != null) {
+                try {
+                    existing.join();
+                } catch (CompletionException e) {
+                    throw unwrap(e);
+                }
+                // Open the shared render, or render again if it was already evicted
+                continue;
+            }
+
+            try {
+                render(source, pageNumber, dpi, imageFormat, target);
+                Preview preview = record(fileName, Files.size(target), key, contentType);
+                render.complete(null);
+                return preview;
+            } catch (IOException | RuntimeException e) {
+                render.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, render);
+            }
+        }
+    }
+
+    private void render(String source, int pageNumber, int dpi, String format, Path target) throws IOException {
+        try (LocalFile file = storage.localFile(source);
+                PdfMemoryBudget.Permit permit = memoryBudget.admit(Files.size(file.getPath()));
+                PDDocument pdf = memoryBudget.load(file.getPath().toFile())) {
+            if (pageNumber < 1 || pageNumber > pdf.getNumberOfPages()) {
+                throw new IllegalArgumentException("Invalid page number " + pageNumber);
+            }
+            // JPEG has no alpha channel
+            ImageType imageType = "png".equals(format) || "webp".equals(format) ? ImageType.ARGB : ImageType.RGB;
+            BufferedImage image = new PDFRenderer(pdf).renderImageWithDPI(pageNumber - 1, dpi, imageType);
+
+            Path temp = Files.createTempFile(cacheDirectory, "render-", ".tmp");
+            try {
+                ImageIO.write(image, format, temp.toFile());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // Opens a cached render and marks it recently used, or returns null on a miss
+    private Preview open(String fileName, String key, String contentType) throws IOException {
+        Path file = cacheDirectory.resolve(fileName);
+        Preview preview;
+        synchronized (this) {
+            Long size = index.get(fileName);
+            if (size == null) {
+                return null;
+            }
+            try {
+                preview = new Preview(Files.newInputStream(file), size, key, contentType);
+            } catch (NoSuchFileException e) {
+                // Deleted behind our back; render it again
+                index.remove(fileName);
+                cachedBytes -= size;
+                return null;
+            }
+        }
+        // Keeps the access order across restarts, see loadIndex
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("Could not touch preview {}: {}", fileName, e.getMessage());
+        }
+        return preview;
+    }
+
+    // Adds a render to the index, evicting the least recently used ones over the budget, and
+    // opens it before anything else can evict it
+    private synchronized Preview record(String fileName, long size, String key, String contentType)
+            throws IOException {
+        add(fileName, size);
+        return new Preview(Files.newInputStream(cacheDirectory.resolve(fileName)), size, key, contentType);
+    }
+
+    private synchronized void add(String fileName, long size) {
+        Long previous = index.put(fileName, size);
+        cachedBytes += size - (previous == null ? 0 : previous);
+
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(fileName)) {
+                continue;
+            }
+            eldest.remove();
+            cachedBytes -= entry.getValue();
+            try {
+                Files.deleteIfExists(cacheDirectory.resolve(entry.getKey()));
+            } catch (IOException e) {
+                logger.warn("Could not evict preview {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    // Rebuilds the LRU order from file modification times after a restart
+    private void loadIndex() throws IOException {
+        List<File> files;
+        try (Stream<Path> stream = Files.list(cacheDirectory)) {
+            files = stream.map(Path::toFile)
+                    .filter(f -> f.isFile() && !f.getName().endsWith(".tmp"))
+                    .sorted(Comparator.comparingLong(File::lastModified))
+                    .collect(Collectors.toList());
+        }
+        for (File file : files) {
+            add(file.getName(), file.length());
+        }
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return new UncheckedIOException((IOException) cause);
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : e;
+    }
+}
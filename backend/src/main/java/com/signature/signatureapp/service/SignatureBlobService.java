@@ -0,0 +1,23 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.SignatureBlob;
+import com.signature.signatureapp.repository.SignatureBlobRepository;
+import com.signature.signatureapp.util.Digests;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class SignatureBlobService {
+
+    @Autowired
+    private SignatureBlobRepository signatureBlobRepository;
+
+    // Stores the payload once per distinct content and returns a reference to it
+    @Transactional
+    public SignatureBlob store(String signatureData) {
+        String hash = Digests.sha256Hex(signatureData);
+        signatureBlobRepository.insertIfAbsent(hash, signatureData, signatureData.length());
+        return signatureBlobRepository.getReferenceById(hash);
+    }
+}
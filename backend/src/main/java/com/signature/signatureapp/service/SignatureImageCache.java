@@ -0,0 +1,201 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.util.Digests;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded LRU cache of signature images, keyed by the SHA-256 of the data URL.
+// Entries hold the already-encoded image stream (filter, decode parms and raw bytes),
+// so a repeat stamp only copies bytes into the target document instead of decoding
+// the PNG and Flate-encoding it again. Images that cannot be snapshotted are remembered too, so
+// they are decoded once per stamp and never twice.
+@Component
+public class SignatureImageCache {
+
+    // Marks keys whose image references other objects (e.g. an ICC profile stream)
+    private static final EncodedImage UNCACHEABLE = new EncodedImage(null, null, null);
+
+    private final int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Map<String, EncodedImage> entries;
+
+    public SignatureImageCache(@Value("${pdf.image-cache.max-entries:256}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EncodedImage> eldest) {
+                if (size() > SignatureImageCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public PDImageXObject createImage(PDDocument document, String signatureDataUrl) throws IOException {
+        String key = Digests.sha256Hex(signatureDataUrl);
+
+        EncodedImage encoded;
+        synchronized (entries) {
+            encoded = entries.get(key);
+        }
+
+        if (encoded != null && encoded != UNCACHEABLE) {
+            hits.incrementAndGet();
+            return new PDImageXObject(new PDStream(encoded.embed(document)), null);
+        }
+
+        misses.incrementAndGet();
+        // Decoded straight into the target document; the snapshot only reads the encoded stream
+        byte[] imageBytes = Base64.getDecoder().decode(signatureDataUrl.split(",")[1]);
+        PDImageXObject image = PDImageXObject.createFromByteArray(document, imageBytes, "signature");
+        if (encoded == null) {
+            EncodedImage snapshot = EncodedImage.of(image.getCOSObject());
+            synchronized (entries) {
+                entries.put(key, snapshot == null ? UNCACHEABLE : snapshot);
+            }
+        }
+        return image;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", getHits());
+        stats.put("misses", getMisses());
+        stats.put("evictions", getEvictions());
+        stats.put("size", size());
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    // Document-independent snapshot of an image XObject stream and its soft mask
+    private static final class EncodedImage {
+        private final COSDictionary dictionary;
+        private final byte[] rawData;
+        private final EncodedImage softMask;
+
+        private EncodedImage(COSDictionary dictionary, byte[] rawData, EncodedImage softMask) {
+            this.dictionary = dictionary;
+            this.rawData = rawData;
+            this.softMask = softMask;
+        }
+
+        static EncodedImage of(COSStream stream) throws IOException {
+            COSDictionary dictionary = new COSDictionary();
+            for (Map.Entry<COSName, COSBase> entry : stream.entrySet()) {
+                COSName key = entry.getKey();
+                if (COSName.LENGTH.equals(key) || COSName.SMASK.equals(key)) {
+                    continue;
+                }
+                COSBase value = copyDirect(entry.getValue());
+                if (value == null) {
+                    return null;
+                }
+                dictionary.setItem(key, value);
+            }
+
+            EncodedImage softMask = null;
+            COSBase smask = stream.getDictionaryObject(COSName.SMASK);
+            if (smask instanceof COSStream) {
+                softMask = of((COSStream) smask);
+                if (softMask == null) {
+                    return null;
+                }
+            }
+
+            byte[] rawData;
+            try (InputStream in = stream.createRawInputStream()) {
+                rawData = IOUtils.toByteArray(in);
+            }
+            return new EncodedImage(dictionary, rawData, softMask);
+        }
+
+        COSStream embed(PDDocument document) throws IOException {
+            COSStream stream = document.getDocument().createCOSStream();
+            for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+                stream.setItem(entry.getKey(), copyDirect(entry.getValue()));
+            }
+            try (OutputStream out = stream.createRawOutputStream()) {
+                out.write(rawData);
+            }
+            if (softMask != null) {
+                stream.setItem(COSName.SMASK, softMask.embed(document));
+            }
+            return stream;
+        }
+
+        // Copies names, numbers and direct arrays/dictionaries; returns null for anything
+        // that references other objects
+        private static COSBase copyDirect(COSBase value) {
+            if (value instanceof COSArray) {
+                COSArray copy = new COSArray();
+                for (COSBase item : (COSArray) value) {
+                    COSBase itemCopy = copyDirect(item);
+                    if (itemCopy == null) {
+                        return null;
+                    }
+                    copy.add(itemCopy);
+                }
+                return copy;
+            }
+            if (value instanceof COSName || value instanceof COSNumber || value instanceof COSBoolean) {
+                return value;
+            }
+            if (!(value instanceof COSDictionary) || value instanceof COSStream) {
+                return null;
+            }
+            COSDictionary copy = new COSDictionary();
+            for (Map.Entry<COSName, COSBase> entry : ((COSDictionary) value).entrySet()) {
+                COSBase entryCopy = copyDirect(entry.getValue());
+                if (entryCopy == null) {
+                    return null;
+                }
+                copy.setItem(entry.getKey(), entryCopy);
+            }
+            return copy;
+        }
+    }
+}
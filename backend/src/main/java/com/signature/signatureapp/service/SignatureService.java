@@ -0,0 +1,194 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.dto.DocumentEvent;
+import com.signature.signatureapp.dto.SignatureRequest;
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.DocumentVersion;
+import com.signature.signatureapp.model.Signature;
+import com.signature.signatureapp.model.SignatureBlob;
+import com.signature.signatureapp.model.User;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.repository.SignatureRepository;
+import com.signature.signatureapp.repository.UserRepository;
+import com.signature.signatureapp.storage.LocalFile;
+import com.signature.signatureapp.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+
+@Service
+public class SignatureService {
+
+    @Autowired
+    private SignatureRepository signatureRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SignatureBlobService signatureBlobService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private PdfService pdfService;
+
+    @Autowired
+    private PageGeometryService pageGeometryService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private DocumentVersionService documentVersionService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private DocumentEventService documentEventService;
+
+    @Autowired
+    private DocumentLocks documentLocks;
+
+    @Autowired
+    private VersionCollector versionCollector;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Signings of one document run one at a time, in arrival order: each one reads the version the
+    // previous one committed, so none of them is lost. The PDF work and the upload of the signed copy
+    // run under the lock but outside any transaction, so a slow signing holds no database connection;
+    // a short transaction then records the signing, and commits before the lock is released.
+    // Document.version rejects that save if the document changed since it was read (another
+    // instance, or a non-signing write such as the lazy geometry index).
+    // Returns the version the signing added.
+    public DocumentVersion signDocument(Long documentId, List<SignatureRequest> placements, Long userId)
+            throws IOException {
+        if (placements == null || placements.isEmpty()) {
+            throw new IllegalArgumentException("At least one signature placement is required");
+        }
+        for (SignatureRequest placement : placements) {
+            if (placement.getDocumentId() != null && !placement.getDocumentId().equals(documentId)) {
+                throw new IllegalArgumentException("All placements must target document " + documentId);
+            }
+        }
+
+        Lock lock = documentLocks.lock(documentId);
+        try {
+            Prepared prepared = transactionTemplate.execute(status -> prepare(documentId, placements, userId));
+            String signedFilePath = sign(prepared.filePath, prepared.placements);
+            return transactionTemplate.execute(status -> record(prepared, signedFilePath, userId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Prepared prepare(Long documentId, List<SignatureRequest> placements, Long userId) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new RuntimeException("Document not found"));
+
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+
+        // Page numbers and bounds are checked against the stored geometry before the PDF is opened.
+        // PDFBox uses bottom-left as (0,0); placements with origin "top-left" are flipped here.
+        List<SignatureRequest> normalized = pageGeometryService.normalize(document, placements);
+        // Indexing the geometry may have saved the document; flush so the version is current
+        documentRepository.flush();
+        return new Prepared(documentId, document.getFilePath(), document.getVersion(), normalized);
+    }
+
+    private DocumentVersion record(Prepared prepared, String signedFilePath, Long userId) {
+        Document document = documentRepository.findById(prepared.documentId)
+                .orElseThrow(() -> new RuntimeException("Document not found"));
+        if (!Objects.equals(document.getVersion(), prepared.version)) {
+            throw new ObjectOptimisticLockingFailureException(Document.class, prepared.documentId);
+        }
+        User user = userRepository.getReferenceById(userId);
+
+        // Save Signature Records
+        List<Signature> signatures = new ArrayList<>(prepared.placements.size());
+        Map<String, SignatureBlob> blobs = new HashMap<>();
+        for (SignatureRequest placement : prepared.placements) {
+            Signature signature = new Signature();
+            signature.setDocument(document);
+            signature.setUser(user);
+            signature.setX(placement.getX());
+            signature.setY(placement.getY());
+            signature.setPageNumber(placement.getPageNumber());
+            signature.setSignatureBlob(
+                    blobs.computeIfAbsent(placement.getSignatureData(), signatureBlobService::store));
+            signatures.add(signature);
+        }
+        signatureRepository.saveAll(signatures);
+
+        // Point the document at the signed version; the one it replaces starts to expire
+        DocumentVersion version = documentVersionService.recordSigned(document, signedFilePath);
+        versionCollector.adopt(signedFilePath);
+        boolean firstCompletion = !"signed".equals(document.getStatus());
+        document.setFilePath(signedFilePath);
+        document.setStatus("signed");
+        documentRepository.save(document);
+        Long ownerId = document.getUser().getId();
+        changeVersionService.bump(ownerId);
+        documentEventService.publish(ownerId,
+                DocumentEvent.version(document.getId(), version.getVersionNumber(), version.getKind()));
+
+        if (firstCompletion) {
+            statsService.recordCompleted(ownerId, document.getUploadTime(), LocalDateTime.now());
+            documentEventService.publish(ownerId, DocumentEvent.status(document.getId(), document.getStatus()));
+        }
+        return version;
+    }
+
+    // Signs a local copy of the stored file and stores the result under the next signed key, which
+    // stays pending until the signing commits
+    private String sign(String key, List<SignatureRequest> placements) throws IOException {
+        String signedKey = PdfService.signedName(key);
+        try (LocalFile source = storage.localFile(key)) {
+            Path target = storage.newTempFile("signing-", ".pdf");
+            try {
+                pdfService.addSignaturesToPdf(source.getPath().toString(), target.toString(), placements);
+                versionCollector.expect(signedKey);
+                storage.importFile(signedKey, target);
+            } finally {
+                Files.deleteIfExists(target);
+            }
+        }
+        return signedKey;
+    }
+
+    // What the first transaction read: the file to sign, the version it had, and the checked placements
+    private static final class Prepared {
+        private final Long documentId;
+        private final String filePath;
+        private final Long version;
+        private final List<SignatureRequest> placements;
+
+        Prepared(Long documentId, String filePath, Long version, List<SignatureRequest> placements) {
+            this.documentId = documentId;
+            this.filePath = filePath;
+            this.version = version;
+            this.placements = placements;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.signature.signatureapp.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+// In-memory state of one asynchronous signing request, see SigningJobService
+public class SigningJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String id;
+    private final Long documentId;
+    private final int placements;
+
+    @JsonIgnore
+    private final Long userId;
+
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime finishedAt;
+    private volatile String documentStatus;
+    // The document version the signing created, see GET /api/docs/{id}/versions
+    private volatile Integer versionNumber;
+    private volatile String error;
+
+    public SigningJob(String id, Long documentId, int placements, Long userId) {
+        this.id = id;
+        this.documentId = documentId;
+        this.placements = placements;
+        this.userId = userId;
+    }
+
+    void markRunning() {
+        this.status = Status.RUNNING;
+    }
+
+    void markDone(String documentStatus, int versionNumber) {
+        this.documentStatus = documentStatus;
+        this.versionNumber = versionNumber;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.DONE;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public int getPlacements() {
+        return placements;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getDocumentStatus() {
+        return documentStatus;
+    }
+
+    public Integer getVersionNumber() {
+        return versionNumber;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
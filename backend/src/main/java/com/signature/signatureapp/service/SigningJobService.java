@@ -0,0 +1,74 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.dto.SignatureRequest;
+import com.signature.signatureapp.model.DocumentVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Runs signing off the request thread on the bounded signingExecutor and keeps job
+// status around for polling until it expires.
+@Service
+public class SigningJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningJobService.class);
+
+    @Autowired
+    private SignatureService signatureService;
+
+    @Autowired
+    @Qualifier("signingExecutor")
+    private ThreadPoolTaskExecutor signingExecutor;
+
+    @Value("${signing.async.job-ttl-minutes:60}")
+    private long jobTtlMinutes;
+
+    private final Map<String, SigningJob> jobs = new ConcurrentHashMap<>();
+
+    // Throws TaskRejectedException when the worker pool and its queue are saturated
+    public SigningJob submit(Long documentId, List<SignatureRequest> placements, Long userId) {
+        SigningJob job = new SigningJob(UUID.randomUUID().toString(), documentId, placements.size(), userId);
+        jobs.put(job.getId(), job);
+
+        try {
+            signingExecutor.execute(() -> run(job, placements));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public SigningJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void run(SigningJob job, List<SignatureRequest> placements) {
+        job.markRunning();
+        try {
+            DocumentVersion version = signatureService.signDocument(job.getDocumentId(), placements, job.getUserId());
+            job.markDone(version.getDocument().getStatus(), version.getVersionNumber());
+        } catch (Exception e) {
+            logger.warn("Signing job {} for document {} failed: {}", job.getId(), job.getDocumentId(), e.getMessage());
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${signing.async.purge-interval-ms:60000}")
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
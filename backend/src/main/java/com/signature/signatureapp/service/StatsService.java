@@ -0,0 +1,167 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.UserStats;
+import com.signature.signatureapp.repository.UserStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dashboard statistics kept as per-user counters in user_stats. Upload and sign events bump
+// the counters in the same transaction as the event itself, so reading the dashboard is a
+// cache hit or a single primary-key lookup no matter how many documents a user has.
+@Service
+public class StatsService {
+
+    private static final long[] BUCKET_LIMITS_SECONDS = {
+            Duration.ofHours(1).getSeconds(),
+            Duration.ofDays(1).getSeconds(),
+            Duration.ofDays(3).getSeconds(),
+            Duration.ofDays(7).getSeconds() };
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    // Bounds staleness when another instance updated the counters
+    @Value("${stats.cache-ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    private final Map<Long, CachedStats> cache = new ConcurrentHashMap<>();
+
+    @Transactional
+    public void recordUpload(Long userId) {
+        recordUploads(userId, 1);
+    }
+
+    // One counter update for a whole bulk upload
+    @Transactional
+    public void recordUploads(Long userId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        userStatsRepository.incrementUploaded(userId, count);
+        evictAfterCommit(userId);
+    }
+
+    @Transactional
+    public void recordCompleted(Long userId, LocalDateTime uploadTime, LocalDateTime completedAt) {
+        long seconds = Math.max(0, Duration.between(uploadTime, completedAt).getSeconds());
+        userStatsRepository.incrementCompleted(userId, seconds, bucketOf(seconds));
+        evictAfterCommit(userId);
+    }
+
+    public Map<String, Object> getStats(Long userId) {
+        CachedStats cached = cache.get(userId);
+        if (cached == null || cached.isExpired(cacheTtlSeconds)) {
+            UserStats stats = userStatsRepository.findById(userId).orElseGet(() -> emptyStats(userId));
+            cached = new CachedStats(toResponse(stats));
+            cache.put(userId, cached);
+        }
+        return cached.stats;
+    }
+
+    // Recomputes a user's rollup from the documents and signatures tables
+    @Transactional
+    public void rebuild(Long userId) {
+        userStatsRepository.deleteById(userId);
+        userStatsRepository.flush();
+        userStatsRepository.rebuild(userId);
+        changeVersionService.bump(userId);
+        evictAfterCommit(userId);
+    }
+
+    @Transactional
+    public int rebuildAll() {
+        int rows = userStatsRepository.rebuildAll();
+        changeVersionService.bumpAll();
+        cache.clear();
+        return rows;
+    }
+
+    private void evictAfterCommit(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(userId);
+                }
+            });
+        } else {
+            cache.remove(userId);
+        }
+    }
+
+    private static int bucketOf(long seconds) {
+        for (int i = 0; i < BUCKET_LIMITS_SECONDS.length; i++) {
+            if (seconds < BUCKET_LIMITS_SECONDS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS_SECONDS.length;
+    }
+
+    private static UserStats emptyStats(Long userId) {
+        UserStats stats = new UserStats();
+        stats.setUserId(userId);
+        return stats;
+    }
+
+    private static Map<String, Object> toResponse(UserStats stats) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("envelopesSent", stats.getDocumentsUploaded());
+        response.put("envelopesCompleted", stats.getDocumentsCompleted());
+        response.put("turnaroundTime", stats.getDocumentsCompleted() == 0 ? "n/a"
+                : formatDuration(stats.getTurnaroundSecondsTotal() / stats.getDocumentsCompleted()));
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        histogram.put("underHour", stats.getTurnaroundUnderHour());
+        histogram.put("underDay", stats.getTurnaroundUnderDay());
+        histogram.put("underThreeDays", stats.getTurnaroundUnderThreeDays());
+        histogram.put("underWeek", stats.getTurnaroundUnderWeek());
+        histogram.put("overWeek", stats.getTurnaroundOverWeek());
+        response.put("turnaroundHistogram", histogram);
+        return response;
+    }
+
+    // e.g. "1 day 4 hours", "3 hours 12 minutes", "5 minutes"
+    static String formatDuration(long seconds) {
+        long days = seconds / 86400;
+        long hours = (seconds % 86400) / 3600;
+        long minutes = (seconds % 3600) / 60;
+        if (days > 0) {
+            return plural(days, "day") + " " + plural(hours, "hour");
+        }
+        if (hours > 0) {
+            return plural(hours, "hour") + " " + plural(minutes, "minute");
+        }
+        return plural(minutes, "minute");
+    }
+
+    private static String plural(long value, String unit) {
+        return value + " " + unit + (value == 1 ? "" : "s");
+    }
+
+    private static final class CachedStats {
+        private final Map<String, Object> stats;
+        private final long loadedAtNanos = System.nanoTime();
+
+        CachedStats(Map<String, Object> stats) {
+            this.stats = stats;
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - loadedAtNanos > Duration.ofSeconds(ttlSeconds).toNanos();
+        }
+    }
+}
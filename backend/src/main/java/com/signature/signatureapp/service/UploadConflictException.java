@@ -0,0 +1,17 @@
+package com.signature.signatureapp.service;
+
+// Thrown by ChunkedUploadService when a chunk or completion does not match the session state
+public class UploadConflictException extends RuntimeException {
+
+    private final long receivedBytes;
+
+    public UploadConflictException(String message, long receivedBytes) {
+        super(message);
+        this.receivedBytes = receivedBytes;
+    }
+
+    // Offset the client should resume from
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+}
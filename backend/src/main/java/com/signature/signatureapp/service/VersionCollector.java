@@ -0,0 +1,171 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.DocumentVersion;
+import com.signature.signatureapp.model.PendingFile;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.repository.DocumentVersionRepository;
+import com.signature.signatureapp.repository.PendingFileRepository;
+import com.signature.signatureapp.storage.StorageBackend;
+import com.signature.signatureapp.storage.StoredObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Reclaims disk space in the background: files of superseded versions whose grace period is
+// over, and signed files nothing refers to (left behind when signing failed after the save).
+// Signed files are found through their pending_files row (see expect), so a run never lists
+// the store. A file is only deleted when no document and no live version points at it. Work per
+// run is capped by versions.gc.batch-size and paced to versions.gc.max-bytes-per-second.
+@Service
+public class VersionCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionCollector.class);
+
+    @Autowired
+    private DocumentVersionRepository documentVersionRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private PendingFileRepository pendingFileRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Value("${versions.gc.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${versions.gc.batch-size:100}")
+    private int batchSize = 100;
+
+    // <= 0 disables pacing
+    @Value("${versions.gc.max-bytes-per-second:52428800}")
+    private long maxBytesPerSecond = 50L * 1024 * 1024;
+
+    // Pending files younger than this may belong to a signing that has not committed yet
+    @Value("${versions.gc.orphan-min-age-hours:6}")
+    private long orphanMinAgeHours = 6;
+
+    @Autowired
+    private StorageBackend storage;
+
+    // Records a key before it is written; call adopt from the transaction that saves the row referring
+    // to it. Committed on its own, so the record survives a rollback or a crash after the write.
+    public void expect(String key) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(
+                status -> pendingFileRepository.save(new PendingFile(key, LocalDateTime.now())));
+    }
+
+    // The key is referred to now; commits or rolls back with the caller's transaction
+    public void adopt(String key) {
+        pendingFileRepository.deleteById(key);
+    }
+
+    @Scheduled(initialDelayString = "${versions.gc.interval-ms:600000}",
+            fixedDelayString = "${versions.gc.interval-ms:600000}")
+    public void collect() {
+        if (!enabled) {
+            return;
+        }
+        Pacer pacer = new Pacer();
+        try {
+            collectSuperseded(pacer);
+            collectOrphans(pacer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Version collection failed: {}", e.getMessage());
+        }
+        if (pacer.files > 0) {
+            logger.info("Reclaimed {} files ({} bytes)", pacer.files, pacer.bytes);
+        }
+    }
+
+    private void collectSuperseded(Pacer pacer) throws IOException, InterruptedException {
+        List<DocumentVersion> expired = documentVersionRepository
+                .findByRetentionAndExpiresAtBeforeAndDeletedAtIsNullOrderByExpiresAtAsc(
+                        DocumentVersion.RETENTION_EXPIRING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        for (DocumentVersion version : expired) {
+            String filePath = version.getFilePath();
+            long reclaimed = 0;
+            if (!documentRepository.existsByFilePath(filePath)
+                    && !documentVersionRepository.existsByFilePathAndDeletedAtIsNullAndIdNot(filePath, version.getId())) {
+                reclaimed = delete(filePath, "superseded");
+            }
+            version.setDeletedAt(LocalDateTime.now());
+            documentVersionRepository.save(version);
+            pacer.reclaimed(reclaimed);
+        }
+    }
+
+    private void collectOrphans(Pacer pacer) throws IOException, InterruptedException {
+        List<PendingFile> stale = pendingFileRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(
+                LocalDateTime.now().minusHours(orphanMinAgeHours), PageRequest.of(0, batchSize));
+        for (PendingFile pending : stale) {
+            String key = pending.getStorageKey();
+            long reclaimed = 0;
+            if (!documentRepository.existsByFilePath(key)
+                    && !documentVersionRepository.existsByFilePathAndDeletedAtIsNull(key)) {
+                reclaimed = delete(key, "orphan");
+            }
+            pendingFileRepository.delete(pending);
+            pacer.reclaimed(reclaimed);
+        }
+    }
+
+    // versions.gc.reclaimed.bytes / versions.gc.reclaimed.files{kind}
+    private long delete(String key, String kind) throws IOException {
+        StoredObject object = storage.stat(key);
+        if (object == null || !storage.delete(key)) {
+            return 0;
+        }
+        long size = object.getSize();
+        Counter.builder("versions.gc.reclaimed.bytes").baseUnit("bytes").tag("kind", kind)
+                .register(meterRegistry).increment(size);
+        Counter.builder("versions.gc.reclaimed.files").tag("kind", kind).register(meterRegistry).increment();
+        logger.debug("Reclaimed {} version file {} ({} bytes)", kind, key, size);
+        return size;
+    }
+
+    // Sleeps whenever the run gets ahead of max-bytes-per-second
+    private final class Pacer {
+        private final long started = System.nanoTime();
+        long files;
+        long bytes;
+
+        void reclaimed(long size) throws InterruptedException {
+            if (size <= 0) {
+                return;
+            }
+            files++;
+            bytes += size;
+            if (maxBytesPerSecond > 0) {
+                long dueMillis = bytes * 1000 / maxBytesPerSecond;
+                long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+                if (dueMillis > elapsedMillis) {
+                    Thread.sleep(dueMillis - elapsedMillis);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.signature.signatureapp.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// A stored object on local disk; temporary copies are deleted on close
+public final class LocalFile implements AutoCloseable {
+
+    private final Path path;
+    private final boolean temporary;
+
+    LocalFile(Path path, boolean temporary) {
+        this.path = path;
+        this.temporary = temporary;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (temporary) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.signature.signatureapp.storage;
+
+import com.signature.signatureapp.util.Digests;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Keys are paths relative to storage.local.root. In the sharded layout (the default) a key is
+// stored below two levels of hash-prefix directories, root/ab/cd/<key>, so no directory holds
+// more than a few hundred files; keys themselves do not change. Files still in the old flat
+// layout are found there until ShardedLayoutMigration has moved them. Absolute paths inside the
+// root, as stored before keys existed, are still accepted.
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("^[0-9a-fA-F]{4}");
+
+    private final Path root;
+    private final boolean sharded;
+
+    public LocalStorageBackend(Path root) {
+        this(root, true);
+    }
+
+    public LocalStorageBackend(Path root, boolean sharded) {
+        this.root = root.toAbsolutePath().normalize();
+        this.sharded = sharded;
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public long write(String key, InputStream content) throws IOException {
+        Path temp = newTempFile("write-", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            return importFile(key, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public long importFile(String key, Path file) throws IOException {
+        Path target = pathFor(key);
+        if (target.equals(file.toAbsolutePath().normalize())) {
+            return Files.size(target);
+        }
+        Files.createDirectories(target.getParent());
+        long size = Files.size(file);
+        try {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Scratch file on another volume
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return size;
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        try {
+            return Files.newInputStream(locate(key));
+        } catch (NoSuchFileException e) {
+            // Moved into the sharded layout between locate and open
+            return Files.newInputStream(locate(key));
+        }
+    }
+
+    @Override
+    public InputStream read(String key, long offset, long length) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(locate(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            channel = FileChannel.open(locate(key), StandardOpenOption.READ);
+        }
+        channel.position(offset);
+        return new BoundedChannelStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        Path path = locate(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new StoredObject(key, attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        boolean deleted = Files.deleteIfExists(pathFor(key));
+        if (sharded) {
+            deleted |= Files.deleteIfExists(flatPath(key));
+        }
+        return deleted;
+    }
+
+    @Override
+    public Stream<StoredObject> list(String prefix) throws IOException {
+        return Files.walk(root)
+                .filter(Files::isRegularFile)
+                .map(this::keyOf)
+                .filter(key -> key.startsWith(prefix) && !isTemporary(key))
+                .map(key -> {
+                    try {
+                        return stat(key);
+                    } catch (IOException e) {
+                        return null;
+                    }
+                })
+                .filter(object -> object != null);
+    }
+
+    @Override
+    public LocalFile localFile(String key) throws IOException {
+        Path path = locate(key);
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(key);
+        }
+        return new LocalFile(path, false);
+    }
+
+    @Override
+    public Path newTempFile(String prefix, String suffix) throws IOException {
+        return Files.createTempFile(root, prefix, suffix);
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return locate(key);
+    }
+
+    // Where key is written in the configured layout
+    public Path pathFor(String key) {
+        return sharded && !Paths.get(key).isAbsolute() ? shardedPath(key) : flatPath(key);
+    }
+
+    // Where key is found: the configured layout first, then the flat layout
+    Path locate(String key) {
+        Path path = pathFor(key);
+        if (sharded && !Files.exists(path)) {
+            Path flat = flatPath(key);
+            if (Files.exists(flat)) {
+                return flat;
+            }
+        }
+        return path;
+    }
+
+    // root/ab/cd/<key>; the prefix comes from a leading content hash, or from hashing the key
+    public Path shardedPath(String key) {
+        String name = Paths.get(key).getFileName().toString();
+        String prefix = HEX_PREFIX.matcher(name).find() ? name.toLowerCase() : Digests.sha256Hex(key);
+        return checked(root.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(key), key);
+    }
+
+    Path flatPath(String key) {
+        Path path = Paths.get(key);
+        return checked(path.isAbsolute() ? path : root.resolve(path), key);
+    }
+
+    // Files left directly in the root by the flat layout, for ShardedLayoutMigration
+    public List<Path> flatFiles(int limit) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path path : stream) {
+                if (files.size() == limit) {
+                    break;
+                }
+                if (Files.isRegularFile(path) && !isTemporary(path.getFileName().toString())) {
+                    files.add(path);
+                }
+            }
+        }
+        return files;
+    }
+
+    private String keyOf(Path path) {
+        Path relative = root.relativize(path);
+        if (relative.getNameCount() > 2) {
+            String key = relative.subpath(2, relative.getNameCount()).toString().replace('\\', '/');
+            if (root.relativize(shardedPath(key)).equals(relative)) {
+                return key;
+            }
+        }
+        return relative.toString().replace('\\', '/');
+    }
+
+    private Path checked(Path path, String key) {
+        Path normalized = path.normalize();
+        if (!normalized.startsWith(root) || normalized.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage key " + key);
+        }
+        return normalized;
+    }
+
+    // Scratch files of newTempFile/write that have not been moved into place yet
+    private static boolean isTemporary(String key) {
+        return key.indexOf('/') < 0 && key.endsWith(".tmp");
+    }
+
+    // Ends after length bytes
+    private static final class BoundedChannelStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedChannelStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
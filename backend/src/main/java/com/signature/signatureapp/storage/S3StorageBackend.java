@@ -0,0 +1,237 @@
+package com.signature.signatureapp.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// S3-compatible object store (AWS S3, MinIO, ...). Writes stream in multipart uploads of
+// part-size bytes, so only one part is buffered per upload; ranged reads use HTTP Range.
+// PDF processing gets a temporary local copy in the scratch directory.
+public class S3StorageBackend implements StorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3StorageBackend.class);
+
+    // S3 rejects parts below 5 MiB (except the last one)
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client client;
+    private final String bucket;
+    private final int partSize;
+    private final Path scratchDir;
+
+    public S3StorageBackend(S3Client client, String bucket, int partSize, Path scratchDir) {
+        this.client = client;
+        this.bucket = bucket;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.scratchDir = scratchDir.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.scratchDir);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create the storage scratch directory.", ex);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "s3";
+    }
+
+    @Override
+    public long write(String key, InputStream content) throws IOException {
+        byte[] part = new byte[partSize];
+        int filled = fill(content, part);
+        if (filled < partSize) {
+            // Fits in one request
+            put(key, part, filled);
+            return filled;
+        }
+
+        String uploadId = client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket).key(key).build()).uploadId();
+        List<CompletedPart> parts = new ArrayList<>();
+        long total = 0;
+        try {
+            while (filled > 0) {
+                int partNumber = parts.size() + 1;
+                String etag = client.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket).key(key).uploadId(uploadId).partNumber(partNumber)
+                        .contentLength((long) filled).build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(part, 0, filled), filled))
+                        .eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+                total += filled;
+                filled = fill(content, part);
+            }
+            client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()).build());
+            return total;
+        } catch (S3Exception e) {
+            abort(key, uploadId);
+            throw new IOException("Upload of " + key + " failed", e);
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    @Override
+    public long importFile(String key, Path file) throws IOException {
+        try {
+            long size = Files.size(file);
+            if (size < partSize) {
+                client.putObject(PutObjectRequest.builder().bucket(bucket).key(key).contentLength(size).build(),
+                        RequestBody.fromFile(file));
+                return size;
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                return write(key, in);
+            }
+        } catch (S3Exception e) {
+            throw new IOException("Upload of " + key + " failed", e);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        return get(GetObjectRequest.builder().bucket(bucket).key(key).build(), key);
+    }
+
+    @Override
+    public InputStream read(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        return get(GetObjectRequest.builder().bucket(bucket).key(key)
+                .range("bytes=" + offset + "-" + (offset + length - 1)).build(), key);
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(builder -> builder.bucket(bucket).key(key));
+            return new StoredObject(key, head.contentLength(), head.lastModified().toEpochMilli());
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw new IOException("Could not stat " + key, e);
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        if (stat(key) == null) {
+            return false;
+        }
+        try {
+            client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+            return true;
+        } catch (S3Exception e) {
+            throw new IOException("Could not delete " + key, e);
+        }
+    }
+
+    @Override
+    public Stream<StoredObject> list(String prefix) {
+        return client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build())
+                .contents().stream()
+                .map(object -> new StoredObject(object.key(), object.size(), object.lastModified().toEpochMilli()));
+    }
+
+    @Override
+    public LocalFile localFile(String key) throws IOException {
+        Path copy = newTempFile("object-", suffix(key));
+        try (InputStream in = read(key)) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            return new LocalFile(copy, true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(copy);
+            throw e;
+        }
+    }
+
+    @Override
+    public Path newTempFile(String prefix, String suffix) throws IOException {
+        return Files.createTempFile(scratchDir, prefix, suffix);
+    }
+
+    private void put(String key, byte[] content, int length) throws IOException {
+        try {
+            client.putObject(PutObjectRequest.builder().bucket(bucket).key(key).contentLength((long) length).build(),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(content, 0, length), length));
+        } catch (S3Exception e) {
+            throw new IOException("Upload of " + key + " failed", e);
+        }
+    }
+
+    private ResponseInputStream<GetObjectResponse> get(GetObjectRequest request, String key) throws IOException {
+        try {
+            return client.getObject(request);
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (S3Exception e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId).build());
+        } catch (RuntimeException e) {
+            logger.warn("Could not abort multipart upload of {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Reads until the buffer is full or the stream ends
+    private static int fill(InputStream in, byte[] buffer) throws IOException {
+        int filled = 0;
+        while (filled < buffer.length) {
+            int n = in.read(buffer, filled, buffer.length - filled);
+            if (n < 0) {
+                break;
+            }
+            filled += n;
+        }
+        return filled;
+    }
+
+    private static String suffix(String key) {
+        String name = Paths.get(key).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot) : ".tmp";
+    }
+}
@@ -0,0 +1,45 @@
+package com.signature.signatureapp.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+// Where document, template and signed files live. Rows store a storage key (for example
+// "<sha256>.pdf"), never a filesystem path, so any instance can serve any file.
+// Selected with storage.backend, see StorageConfig.
+public interface StorageBackend {
+
+    String getName();
+
+    // Streams content to key, replacing an existing object; returns the bytes written
+    long write(String key, InputStream content) throws IOException;
+
+    // Moves a local file (ideally one from newTempFile) into the store; the file is gone afterwards
+    long importFile(String key, Path file) throws IOException;
+
+    // Throws NoSuchFileException when the object does not exist
+    InputStream read(String key) throws IOException;
+
+    InputStream read(String key, long offset, long length) throws IOException;
+
+    // null when the object does not exist
+    StoredObject stat(String key) throws IOException;
+
+    // true if an object was removed
+    boolean delete(String key) throws IOException;
+
+    // Objects whose key starts with prefix; close the stream when done
+    Stream<StoredObject> list(String prefix) throws IOException;
+
+    // The object as a local file for code that needs random access (PDFBox)
+    LocalFile localFile(String key) throws IOException;
+
+    // Scratch file on the volume importFile moves from cheaply
+    Path newTempFile(String prefix, String suffix) throws IOException;
+
+    // The object's file when it already lives on local disk (enables sendfile), otherwise null
+    default Path localPath(String key) {
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.signature.signatureapp.migration;
+
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageCopyMigrationTest {
+
+	private static final String SHARDED = "abcd0123.pdf";
+	private static final String FLAT = "ef012345_signed_1700000000000.pdf";
+
+	@TempDir
+	Path source;
+
+	@TempDir
+	Path target;
+
+	@Test
+	void copiesFilesFromBothLayoutsOfTheUploadDirectory() throws IOException {
+		new LocalStorageBackend(source).write(SHARDED, new ByteArrayInputStream(bytes("sharded")));
+		Files.write(source.resolve(FLAT), bytes("flat"));
+		LocalStorageBackend storage = new LocalStorageBackend(target);
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(""), eq(500)))
+				.thenReturn(List.of(SHARDED, FLAT, "missing.pdf", "../../../outside.pdf"));
+
+		StorageCopyMigration migration = new StorageCopyMigration();
+		ReflectionTestUtils.setField(migration, "enabled", true);
+		ReflectionTestUtils.setField(migration, "batchSize", 500);
+		ReflectionTestUtils.setField(migration, "sourceDir", source.toString());
+		ReflectionTestUtils.setField(migration, "storage", storage);
+		ReflectionTestUtils.setField(migration, "jdbcTemplate", jdbcTemplate);
+		migration.run(null);
+
+		assertThat(storage.localPath(SHARDED)).hasBinaryContent(bytes("sharded"));
+		assertThat(storage.localPath(FLAT)).hasBinaryContent(bytes("flat"));
+		assertThat(storage.stat("missing.pdf")).isNull();
+	}
+
+	private static byte[] bytes(String content) {
+		return content.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,200 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.UploadSession;
+import com.signature.signatureapp.model.User;
+import com.signature.signatureapp.repository.UploadSessionRepository;
+import com.signature.signatureapp.repository.UserRepository;
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import com.signature.signatureapp.util.Digests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChunkedUploadServiceTest {
+
+	private static final long MIB = 1024 * 1024;
+	private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+	private static final String HASH = Digests.toHex(Digests.sha256().digest(CONTENT));
+
+	@TempDir
+	Path root;
+
+	private final UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+	private final DocumentService documentService = mock(DocumentService.class);
+	private final ChunkedUploadService uploadService = new ChunkedUploadService();
+
+	@BeforeEach
+	void setUp() {
+		UserRepository userRepository = mock(UserRepository.class);
+		User user = new User();
+		user.setId(1L);
+		when(userRepository.getReferenceById(1L)).thenReturn(user);
+		when(uploadSessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(uploadSessionRepository.advance(anyString(), anyLong(), anyLong(), any())).thenReturn(1);
+
+		ReflectionTestUtils.setField(uploadService, "uploadSessionRepository", uploadSessionRepository);
+		ReflectionTestUtils.setField(uploadService, "userRepository", userRepository);
+		ReflectionTestUtils.setField(uploadService, "documentService", documentService);
+		ReflectionTestUtils.setField(uploadService, "storage", new LocalStorageBackend(root));
+		// 8 MiB base cost + 1.5 bytes per file byte against 32 MiB: PDFs up to 16 MiB
+		ReflectionTestUtils.setField(uploadService, "memoryBudget", new PdfMemoryBudget(32 * MIB, 0.5));
+		ReflectionTestUtils.setField(uploadService, "maxFileBytes", 64 * MIB);
+	}
+
+	@Test
+	void completesChunksWithTheRunningDigest() throws IOException {
+		UploadSession session = create(null);
+
+		assertThat(uploadService.writeChunk(session, 0, chunk(0, 7))).isEqualTo(7);
+		assertThat(uploadService.writeChunk(session, 7, chunk(7, 20))).isEqualTo(20);
+		uploadService.complete(session, HASH);
+
+		verify(documentService).storeStaged(any(), eq(HASH), eq(20L), eq("a.pdf"), eq("application/pdf"), eq(1L));
+		assertThat(Paths.get(session.getStagingPath())).doesNotExist();
+	}
+
+	@Test
+	void hashesTheStagingFileWhenTheRunningDigestIsLost() throws IOException {
+		UploadSession session = create(HASH);
+		uploadService.writeChunk(session, 0, chunk(0, 12));
+		// As after a restart
+		((Map<?, ?>) ReflectionTestUtils.getField(uploadService, "digests")).clear();
+		uploadService.writeChunk(session, 12, chunk(12, 20));
+
+		uploadService.complete(session, null);
+
+		verify(documentService).storeStaged(any(), eq(HASH), eq(20L), any(), any(), any());
+	}
+
+	@Test
+	void rejectsChunksAtTheWrongOffset() throws IOException {
+		UploadSession session = create(null);
+		uploadService.writeChunk(session, 0, chunk(0, 5));
+
+		assertThatThrownBy(() -> uploadService.writeChunk(session, 3, chunk(3, 10)))
+				.isInstanceOfSatisfying(UploadConflictException.class,
+						e -> assertThat(e.getReceivedBytes()).isEqualTo(5));
+		assertThat(session.getReceivedBytes()).isEqualTo(5);
+	}
+
+	@Test
+	void rejectsChunksPastTheDeclaredSize() throws IOException {
+		UploadSession session = create(null);
+
+		assertThatThrownBy(() -> uploadService.writeChunk(session, 0,
+				new ByteArrayInputStream(new byte[CONTENT.length + 1])))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(session.getReceivedBytes()).isZero();
+	}
+
+	@Test
+	void keepsTheBytesThatArrivedBeforeTheClientWentAway() throws IOException {
+		UploadSession session = create(null);
+		InputStream dropped = new InputStream() {
+			private int position;
+
+			@Override
+			public int read() throws IOException {
+				if (position == 8) {
+					throw new IOException("Connection reset");
+				}
+				return CONTENT[position++];
+			}
+		};
+
+		assertThatThrownBy(() -> uploadService.writeChunk(session, 0, dropped)).isInstanceOf(IOException.class);
+		assertThat(session.getReceivedBytes()).isEqualTo(8);
+
+		uploadService.writeChunk(session, 8, chunk(8, 20));
+		uploadService.complete(session, HASH);
+		verify(documentService).storeStaged(any(), eq(HASH), eq(20L), any(), any(), any());
+	}
+
+	@Test
+	void discardsTheSessionOnDigestMismatch() throws IOException {
+		UploadSession session = create(null);
+		uploadService.writeChunk(session, 0, chunk(0, 20));
+
+		assertThatThrownBy(() -> uploadService.complete(session, "0".repeat(64)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining(HASH);
+		assertThat(Paths.get(session.getStagingPath())).doesNotExist();
+		verify(uploadSessionRepository).deleteById(session.getId());
+	}
+
+	@Test
+	void keepsTheSessionWhenStoringFailsSoCompleteCanBeRetried() throws IOException {
+		UploadSession session = create(null);
+		uploadService.writeChunk(session, 0, chunk(0, 20));
+		when(documentService.storeStaged(any(), anyString(), anyLong(), any(), any(), any()))
+				.thenThrow(new RuntimeException("Could not store file a.pdf. Please try again!"))
+				.thenReturn(new Document());
+
+		assertThatThrownBy(() -> uploadService.complete(session, HASH)).isInstanceOf(RuntimeException.class);
+		assertThat(Paths.get(session.getStagingPath())).exists();
+		verify(uploadSessionRepository, never()).deleteById(session.getId());
+
+		uploadService.complete(session, HASH);
+		verify(documentService, times(2)).storeStaged(any(), eq(HASH), eq(20L), any(), any(), any());
+		assertThat(Paths.get(session.getStagingPath())).doesNotExist();
+		verify(uploadSessionRepository).deleteById(session.getId());
+	}
+
+	@Test
+	void discardsTheSessionWhenAFailedStoreConsumedTheStagingFile() throws IOException {
+		UploadSession session = create(null);
+		uploadService.writeChunk(session, 0, chunk(0, 20));
+		when(documentService.storeStaged(any(), anyString(), anyLong(), any(), any(), any())).thenAnswer(invocation -> {
+			Files.delete(invocation.getArgument(0));
+			throw new RuntimeException("Could not store file a.pdf. Please try again!");
+		});
+
+		assertThatThrownBy(() -> uploadService.complete(session, HASH)).isInstanceOf(RuntimeException.class);
+		verify(uploadSessionRepository).deleteById(session.getId());
+	}
+
+	@Test
+	void capsPdfsAtWhatTheMemoryBudgetCanAdmit() throws IOException {
+		assertThatThrownBy(() -> uploadService.create(1L, "big.pdf", "application/pdf", 20 * MIB, null))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining(String.valueOf(16 * MIB));
+		assertThatThrownBy(() -> uploadService.create(1L, "big.PDF", null, 20 * MIB, null))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(uploadService.create(1L, "big.pdf", "application/pdf", 16 * MIB, null)).isNotNull();
+		assertThat(uploadService.create(1L, "big.zip", "application/zip", 20 * MIB, null)).isNotNull();
+		assertThatThrownBy(() -> uploadService.create(1L, "big.zip", "application/zip", 65 * MIB, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private UploadSession create(String sha256) throws IOException {
+		return uploadService.create(1L, "a.pdf", "application/pdf", CONTENT.length, sha256);
+	}
+
+	private static InputStream chunk(int from, int to) {
+		return new ByteArrayInputStream(CONTENT, from, to - from);
+	}
+}
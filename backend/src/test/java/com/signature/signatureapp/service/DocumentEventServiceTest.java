@@ -0,0 +1,115 @@
+package com.signature.signatureapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DocumentEventServiceTest {
+
+	private final ThreadPoolTaskExecutor eventExecutor = new ThreadPoolTaskExecutor();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final DocumentEventService eventService = new DocumentEventService();
+	private final CountDownLatch unblock = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() {
+		eventExecutor.setCorePoolSize(1);
+		eventExecutor.setMaxPoolSize(1);
+		eventExecutor.initialize();
+		ChangeVersionService changeVersionService = mock(ChangeVersionService.class);
+		when(changeVersionService.etag(any())).thenReturn("\"1\"");
+
+		ReflectionTestUtils.setField(eventService, "eventExecutor", eventExecutor);
+		ReflectionTestUtils.setField(eventService, "changeVersionService", changeVersionService);
+		ReflectionTestUtils.setField(eventService, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(eventService, "bufferSize", 64);
+		ReflectionTestUtils.setField(eventService, "maxSubscribersPerUser", 16);
+		ReflectionTestUtils.setField(eventService, "sendThreads", 1);
+		ReflectionTestUtils.setField(eventService, "maxSendThreads", 4);
+		ReflectionTestUtils.setField(eventService, "sendTimeoutMs", 100L);
+	}
+
+	@AfterEach
+	void tearDown() {
+		unblock.countDown();
+		eventExecutor.shutdown();
+	}
+
+	@Test
+	void stuckWriteDoesNotHoldUpOtherStreams() throws Exception {
+		BlockingEmitter stalled = new BlockingEmitter();
+		RecordingEmitter healthy = new RecordingEmitter();
+
+		eventService.subscribe(1L, stalled);
+		assertThat(stalled.entered.await(5, TimeUnit.SECONDS)).isTrue();
+		eventService.subscribe(2L, healthy);
+		Thread.sleep(150);
+		assertThat(healthy.events).isEmpty();
+
+		eventService.evictStuck();
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> healthy.events.size() == 1);
+		assertThat(eventService.getSubscriberCount()).isEqualTo(1);
+		assertThat(eventService.getStuckSends()).isEqualTo(1);
+		assertThat(eventExecutor.getMaxPoolSize()).isEqualTo(2);
+		assertThat(meterRegistry.counter("events.sse.evictions", "reason", "blocked").count()).isEqualTo(1);
+
+		unblock.countDown();
+		await().atMost(5, TimeUnit.SECONDS).until(() -> eventService.getStuckSends() == 0);
+		assertThat(eventExecutor.getMaxPoolSize()).isEqualTo(1);
+		assertThat(eventExecutor.getCorePoolSize()).isEqualTo(1);
+	}
+
+	@Test
+	void leavesWritesWithinTheTimeoutAlone() throws Exception {
+		ReflectionTestUtils.setField(eventService, "sendTimeoutMs", 60_000L);
+		BlockingEmitter slow = new BlockingEmitter();
+
+		eventService.subscribe(1L, slow);
+		assertThat(slow.entered.await(5, TimeUnit.SECONDS)).isTrue();
+		eventService.evictStuck();
+
+		assertThat(eventService.getSubscriberCount()).isEqualTo(1);
+		assertThat(eventService.getStuckSends()).isZero();
+	}
+
+	// A client that stopped reading: the first write never returns until the test lets it
+	private final class BlockingEmitter extends SseEmitter {
+		private final CountDownLatch entered = new CountDownLatch(1);
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			entered.countDown();
+			try {
+				unblock.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+		private final List<SseEventBuilder> events = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			events.add(builder);
+		}
+	}
+}
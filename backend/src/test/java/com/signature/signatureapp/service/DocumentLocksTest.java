@@ -0,0 +1,132 @@
+package com.signature.signatureapp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class DocumentLocksTest {
+
+	private final DocumentLocks locks = new DocumentLocks(4);
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void serializesTheSameDocument() throws Exception {
+		Lock held = locks.lock(1L);
+
+		Future<?> second = executor.submit(() -> locks.lock(1L).unlock());
+		await().atMost(5, TimeUnit.SECONDS).until(() -> locks.getWaiting() == 1);
+		assertThat(second).isNotDone();
+
+		held.unlock();
+		second.get(5, TimeUnit.SECONDS);
+		assertThat(locks.getAcquired()).isEqualTo(2);
+		assertThat(locks.getContended()).isEqualTo(1);
+		assertThat(locks.getWaitSeconds()).isPositive();
+	}
+
+	@Test
+	void servesQueuedCallersInArrivalOrder() throws Exception {
+		Lock held = locks.lock(1L);
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+		List<Future<?>> waiters = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			int caller = i;
+			waiters.add(executor.submit(() -> {
+				Lock lock = locks.lock(1L);
+				order.add(caller);
+				lock.unlock();
+			}));
+			await().atMost(5, TimeUnit.SECONDS).until(() -> locks.getWaiting() == caller + 1);
+		}
+
+		held.unlock();
+		for (Future<?> waiter : waiters) {
+			waiter.get(5, TimeUnit.SECONDS);
+		}
+		assertThat(order).containsExactly(0, 1, 2, 3);
+	}
+
+	@Test
+	void doesNotSerializeDifferentDocuments() throws Exception {
+		Lock held = locks.lock(1L);
+		try {
+			executor.submit(() -> locks.lock(2L).unlock()).get(1, TimeUnit.SECONDS);
+			executor.submit(() -> locks.lock(-1L).unlock()).get(1, TimeUnit.SECONDS);
+		} finally {
+			held.unlock();
+		}
+		assertThat(locks.getContended()).isZero();
+	}
+
+	@Test
+	void documentsOnTheSameStripeShareTheLock() {
+		Lock held = locks.lock(1L);
+		try {
+			CompletableFuture<Lock> colliding = CompletableFuture.supplyAsync(() -> locks.lock(5L), executor);
+			await().atMost(5, TimeUnit.SECONDS).until(() -> locks.getWaiting() == 1);
+			assertThat(colliding).isNotDone();
+		} finally {
+			held.unlock();
+		}
+	}
+
+	@Test
+	void givesUpAfterTheTimeout() {
+		ReflectionTestUtils.setField(locks, "timeoutMs", 50L);
+		Lock held = locks.lock(1L);
+		try {
+			CompletableFuture<Lock> waiting = CompletableFuture.supplyAsync(() -> locks.lock(1L), executor);
+
+			assertThat(waiting).failsWithin(5, TimeUnit.SECONDS)
+					.withThrowableOfType(Exception.class)
+					.withCauseInstanceOf(DocumentBusyException.class);
+		} finally {
+			held.unlock();
+		}
+		assertThat(locks.getTimedOut()).isEqualTo(1);
+		assertThat(locks.getWaiting()).isZero();
+	}
+
+	@Test
+	void keepsUpdatesToOneDocumentConsistent() throws Exception {
+		int[] counter = new int[1];
+		List<Future<?>> workers = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			workers.add(executor.submit(() -> {
+				for (int n = 0; n < 1000; n++) {
+					Lock lock = locks.lock(7L);
+					try {
+						counter[0]++;
+					} finally {
+						lock.unlock();
+					}
+				}
+			}));
+		}
+		for (Future<?> worker : workers) {
+			worker.get(30, TimeUnit.SECONDS);
+		}
+
+		assertThat(counter[0]).isEqualTo(8000);
+		assertThat(locks.getAcquired()).isEqualTo(8000);
+	}
+}
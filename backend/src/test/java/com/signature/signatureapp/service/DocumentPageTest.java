@@ -0,0 +1,94 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.dto.DocumentPage;
+import com.signature.signatureapp.dto.DocumentSummary;
+import com.signature.signatureapp.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Keyset cursors of DocumentService.getDocumentPage
+class DocumentPageTest {
+
+	private static final LocalDateTime T1 = LocalDateTime.of(2024, 5, 1, 10, 0, 0, 123_000_000);
+	private static final LocalDateTime T2 = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+	private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+	private final DocumentService documentService = new DocumentService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(documentService, "documentRepository", documentRepository);
+	}
+
+	@Test
+	void nextCursorContinuesAfterTheLastRow() {
+		when(documentRepository.findSummariesFirstPage(eq(1L), eq(null), any()))
+				.thenReturn(List.of(summary(30L, T1), summary(20L, T2), summary(10L, T2)));
+
+		DocumentPage first = documentService.getDocumentPage(1L, null, null, 2);
+
+		assertThat(first.getItems()).extracting(DocumentSummary::getId).containsExactly(30L, 20L);
+		assertThat(first.getNextCursor()).isNotNull();
+
+		when(documentRepository.findSummariesAfter(eq(1L), eq(null), any(), any(), any()))
+				.thenReturn(List.of(summary(10L, T2)));
+		DocumentPage second = documentService.getDocumentPage(1L, null, first.getNextCursor(), 2);
+
+		verify(documentRepository).findSummariesAfter(1L, null, T2, 20L, PageRequest.of(0, 3));
+		assertThat(second.getItems()).extracting(DocumentSummary::getId).containsExactly(10L);
+		assertThat(second.getNextCursor()).isNull();
+	}
+
+	@Test
+	void cursorKeepsFractionalSeconds() {
+		when(documentRepository.findSummariesFirstPage(eq(1L), eq("signed"), any()))
+				.thenReturn(List.of(summary(30L, T1), summary(20L, T2)));
+
+		String cursor = documentService.getDocumentPage(1L, "signed", null, 1).getNextCursor();
+		documentService.getDocumentPage(1L, "signed", cursor, 1);
+
+		verify(documentRepository).findSummariesAfter(1L, "signed", T1, 30L, PageRequest.of(0, 2));
+	}
+
+	@Test
+	void clampsThePageSize() {
+		documentService.getDocumentPage(1L, null, null, 0);
+		documentService.getDocumentPage(1L, null, null, 10_000);
+
+		verify(documentRepository).findSummariesFirstPage(1L, null, PageRequest.of(0, 2));
+		verify(documentRepository).findSummariesFirstPage(1L, null, PageRequest.of(0, 101));
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		for (String cursor : List.of("not base64!", encode("no separator"), encode("yesterday|1"),
+				encode("2024-05-01T10:00|abc"), encode("2024-05-01T10:00|1|2"))) {
+			assertThatThrownBy(() -> documentService.getDocumentPage(1L, null, cursor, 10))
+					.as(cursor)
+					.isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	private static DocumentSummary summary(Long id, LocalDateTime uploadTime) {
+		return new DocumentSummary(id, "doc" + id + ".pdf", "application/pdf", "pending", uploadTime);
+	}
+
+	private static String encode(String position) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,111 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.FileBlob;
+import com.signature.signatureapp.repository.FileBlobRepository;
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileBlobServiceTest {
+
+	private static final String HASH = "abcd0123";
+
+	@TempDir
+	Path root;
+
+	private final FileBlobRepository fileBlobRepository = mock(FileBlobRepository.class);
+	private final FileBlobService fileBlobService = new FileBlobService();
+	private LocalStorageBackend storage;
+
+	@BeforeEach
+	void setUp() {
+		storage = new LocalStorageBackend(root);
+		ReflectionTestUtils.setField(fileBlobService, "fileBlobRepository", fileBlobRepository);
+		ReflectionTestUtils.setField(fileBlobService, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(fileBlobService, "storage", storage);
+		ReflectionTestUtils.setField(fileBlobService, "meterRegistry", new SimpleMeterRegistry());
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void deletesTheFileOnlyAfterTheReleaseCommitted() throws IOException {
+		storage.write(HASH + ".pdf", new ByteArrayInputStream(new byte[4]));
+		FileBlob blob = blob(HASH + ".pdf", 0);
+		when(fileBlobRepository.findForUpdate(HASH)).thenReturn(Optional.of(blob));
+
+		fileBlobService.release(HASH);
+
+		assertThat(storage.stat(HASH + ".pdf")).isNotNull();
+		verify(fileBlobRepository, never()).delete(any());
+
+		afterCommit();
+
+		assertThat(storage.stat(HASH + ".pdf")).isNull();
+		verify(fileBlobRepository).delete(blob);
+	}
+
+	@Test
+	void keepsTheFileWhenAnotherUploadTookAReferenceMeanwhile() throws IOException {
+		storage.write(HASH + ".pdf", new ByteArrayInputStream(new byte[4]));
+		when(fileBlobRepository.findForUpdate(HASH)).thenReturn(Optional.of(blob(HASH + ".pdf", 1)));
+
+		fileBlobService.release(HASH);
+		afterCommit();
+
+		assertThat(storage.stat(HASH + ".pdf")).isNotNull();
+		verify(fileBlobRepository, never()).delete(any());
+	}
+
+	@Test
+	void storesTheContentAgainWhenTheRowOutlivedItsFile() throws IOException {
+		FileBlob stale = blob(HASH + ".pdf", 1);
+		when(fileBlobRepository.findById(HASH)).thenReturn(Optional.of(stale));
+		when(fileBlobRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		Path upload = storage.newTempFile("upload-", ".tmp");
+		Files.write(upload, new byte[] { 1, 2, 3 });
+
+		FileBlob adopted = fileBlobService.adopt(upload, HASH, 3, ".pdf");
+
+		verify(fileBlobRepository).acquire(HASH, HASH + ".pdf", 3);
+		assertThat(storage.stat(adopted.getFilePath()).getSize()).isEqualTo(3);
+	}
+
+	private static void afterCommit() {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+	}
+
+	private static FileBlob blob(String filePath, int refCount) {
+		FileBlob blob = new FileBlob();
+		blob.setHash(HASH);
+		blob.setFilePath(filePath);
+		blob.setRefCount(refCount);
+		return blob;
+	}
+}
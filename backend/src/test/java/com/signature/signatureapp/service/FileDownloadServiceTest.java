@@ -0,0 +1,147 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import com.signature.signatureapp.util.Digests;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileDownloadServiceTest {
+
+	private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+	@TempDir
+	Path root;
+
+	private final FileDownloadService downloadService = new FileDownloadService();
+	private String hash;
+	private String key;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		LocalStorageBackend storage = new LocalStorageBackend(root);
+		ContentDigestService digestService = new ContentDigestService();
+		ReflectionTestUtils.setField(digestService, "storage", storage);
+		ReflectionTestUtils.setField(downloadService, "storage", storage);
+		ReflectionTestUtils.setField(downloadService, "contentDigestService", digestService);
+		ReflectionTestUtils.setField(downloadService, "meterRegistry", new SimpleMeterRegistry());
+
+		hash = Digests.toHex(Digests.sha256().digest(CONTENT));
+		key = hash + ".pdf";
+		storage.write(key, new ByteArrayInputStream(CONTENT));
+		storage.write(hash + "_signed_1700000000000.pdf", new ByteArrayInputStream("signed".getBytes()));
+	}
+
+	@Test
+	void servesFullBodyWithContentHashETag() throws IOException {
+		MockHttpServletResponse response = serve(key, get());
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + hash + "\"");
+		assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+	}
+
+	@Test
+	void answersMatchingETagWithNotModified() throws IOException {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + hash + "\"");
+
+		MockHttpServletResponse response = serve(key, request);
+
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	void signedVersionDoesNotReuseTheUploadETag() throws IOException {
+		String signedKey = hash + "_signed_1700000000000.pdf";
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + hash + "\"");
+
+		MockHttpServletResponse response = serve(signedKey, request);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader(HttpHeaders.ETAG))
+				.isEqualTo("\"" + Digests.toHex(Digests.sha256().digest("signed".getBytes())) + "\"");
+	}
+
+	@Test
+	void servesSingleRange() throws IOException {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+		MockHttpServletResponse response = serve(key, request);
+
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/20");
+		assertThat(response.getContentAsString()).isEqualTo("2345");
+	}
+
+	@Test
+	void servesSuffixRange() throws IOException {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+		MockHttpServletResponse response = serve(key, request);
+
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 17-19/20");
+		assertThat(response.getContentAsString()).isEqualTo("hij");
+	}
+
+	@Test
+	void rejectsRangePastTheEnd() throws IOException {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=20-");
+
+		MockHttpServletResponse response = serve(key, request);
+
+		assertThat(response.getStatus()).isEqualTo(416);
+		assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+	}
+
+	@Test
+	void ignoresRangeWithStaleIfRange() throws IOException {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+
+		MockHttpServletResponse response = serve(key, request);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+	}
+
+	@Test
+	void servesMultiRangeRequestsInFull() throws IOException {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-1,4-5");
+
+		MockHttpServletResponse response = serve(key, request);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+	}
+
+	private static MockHttpServletRequest get() {
+		return new MockHttpServletRequest("GET", "/api/docs/download/1");
+	}
+
+	private MockHttpServletResponse serve(String key, MockHttpServletRequest request) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		downloadService.serve(key, "application/pdf", "file.pdf", hash, request, response);
+		return response;
+	}
+}
@@ -0,0 +1,117 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.dto.PageGeometry;
+import com.signature.signatureapp.dto.SignatureRequest;
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class PageGeometryServiceTest {
+
+	private static final float[] LETTER = { 0, 0, 612, 792 };
+
+	private final PageGeometryService geometryService = new PageGeometryService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(geometryService, "documentRepository", mock(DocumentRepository.class));
+	}
+
+	@Test
+	void keepsBottomLeftPlacements() {
+		Document document = pdf(new PageGeometry(1, LETTER, LETTER, 0));
+
+		SignatureRequest normalized = geometryService.normalize(document, List.of(placement(100, 200, null))).get(0);
+
+		assertThat(normalized.getX()).isEqualTo(100);
+		assertThat(normalized.getY()).isEqualTo(200);
+	}
+
+	@Test
+	void flipsTopLeftPlacements() {
+		Document document = pdf(new PageGeometry(1, LETTER, LETTER, 0));
+
+		SignatureRequest normalized = geometryService
+				.normalize(document, List.of(placement(100, 200, PageGeometryService.ORIGIN_TOP_LEFT))).get(0);
+
+		assertThat(normalized.getX()).isEqualTo(100);
+		assertThat(normalized.getY()).isEqualTo(792 - 200 - PdfService.SIGNATURE_FONT_SIZE);
+	}
+
+	@Test
+	void convertsTopLeftPlacementsOnRotatedPages() {
+		Document document = pdf(new PageGeometry(1, LETTER, LETTER, 90));
+
+		SignatureRequest normalized = geometryService
+				.normalize(document, List.of(placement(100, 200, PageGeometryService.ORIGIN_TOP_LEFT))).get(0);
+
+		assertThat(normalized.getX()).isEqualTo(200 + PdfService.SIGNATURE_FONT_SIZE);
+		assertThat(normalized.getY()).isEqualTo(100);
+	}
+
+	@Test
+	void rejectsPlacementsOffThePageOrOnMissingPages() {
+		Document document = pdf(new PageGeometry(1, LETTER, LETTER, 0));
+
+		assertThatThrownBy(() -> geometryService.normalize(document, List.of(placement(700, 100, null))))
+				.isInstanceOf(IllegalArgumentException.class);
+		SignatureRequest secondPage = placement(100, 100, null);
+		secondPage.setPageNumber(2);
+		assertThatThrownBy(() -> geometryService.normalize(document, List.of(secondPage)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void passesBottomLeftPlacementsThroughWithoutGeometry() {
+		Document document = withoutGeometry();
+		List<SignatureRequest> placements = List.of(placement(5000, -10, PageGeometryService.ORIGIN_BOTTOM_LEFT));
+
+		assertThat(geometryService.normalize(document, placements)).isSameAs(placements);
+	}
+
+	@Test
+	void rejectsTopLeftPlacementsWithoutGeometry() {
+		Document document = withoutGeometry();
+
+		assertThatThrownBy(() -> geometryService.normalize(document,
+				List.of(placement(10, 10, PageGeometryService.ORIGIN_TOP_LEFT))))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("no page geometry");
+	}
+
+	private Document pdf(PageGeometry... pages) {
+		Document document = new Document();
+		document.setId(1L);
+		document.setFileType("application/pdf");
+		document.setFilePath("a.pdf");
+		document.setPageCount(pages.length);
+		document.setPageGeometry(geometryService.encode(List.of(pages)));
+		return document;
+	}
+
+	private static Document withoutGeometry() {
+		Document document = new Document();
+		document.setId(2L);
+		document.setFileType("text/plain");
+		document.setFilePath("notes.txt");
+		return document;
+	}
+
+	private static SignatureRequest placement(float x, float y, String origin) {
+		SignatureRequest placement = new SignatureRequest();
+		placement.setSignatureData("Alice");
+		placement.setX(x);
+		placement.setY(y);
+		placement.setPageNumber(1);
+		placement.setOrigin(origin);
+		return placement;
+	}
+}
@@ -0,0 +1,96 @@
+package com.signature.signatureapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class PdfMemoryBudgetTest {
+
+	private static final long MIB = 1024 * 1024;
+
+	// 8 MiB base cost + 1.5 bytes per file byte against a 32 MiB budget
+	private final PdfMemoryBudget budget = new PdfMemoryBudget(32 * MIB, 0.5);
+
+	@Test
+	void releasesTheCostOnClose() {
+		try (PdfMemoryBudget.Permit permit = budget.admit(4 * MIB)) {
+			assertThat(budget.getAvailableBytes()).isEqualTo(32 * MIB - budget.estimateCost(4 * MIB));
+		}
+
+		assertThat(budget.getAvailableBytes()).isEqualTo(32 * MIB);
+		assertThat(budget.getAdmitted()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsJobsLargerThanTheWholeBudget() {
+		assertThatThrownBy(() -> budget.admit(20 * MIB))
+				.isInstanceOf(PdfTooLargeException.class)
+				.hasMessageContaining("too large");
+
+		assertThat(budget.getRejected()).isEqualTo(1);
+		assertThat(budget.getAvailableBytes()).isEqualTo(32 * MIB);
+	}
+
+	@Test
+	void maxFileBytesIsTheLargestAdmissibleFile() {
+		long max = budget.getMaxFileBytes();
+
+		assertThat(max).isEqualTo(16 * MIB);
+		budget.admit(max).close();
+		assertThatThrownBy(() -> budget.admit(max + 1)).hasMessageContaining("too large");
+	}
+
+	@Test
+	void queuedJobRunsOnceCapacityIsReleased() throws Exception {
+		PdfMemoryBudget.Permit first = budget.admit(10 * MIB);
+
+		CompletableFuture<PdfMemoryBudget.Permit> second = CompletableFuture.supplyAsync(() -> budget.admit(10 * MIB));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> budget.getWaiting() == 1);
+		assertThat(second).isNotDone();
+
+		first.close();
+
+		second.get(5, TimeUnit.SECONDS).close();
+		assertThat(budget.getQueued()).isEqualTo(1);
+		assertThat(budget.getAvailableBytes()).isEqualTo(32 * MIB);
+	}
+
+	@Test
+	void rejectsWhenTheQueueIsFull() {
+		ReflectionTestUtils.setField(budget, "maxQueued", 0);
+
+		try (PdfMemoryBudget.Permit permit = budget.admit(10 * MIB)) {
+			assertThatThrownBy(() -> budget.admit(10 * MIB))
+					.isInstanceOf(PdfAdmissionException.class)
+					.isNotInstanceOf(PdfTooLargeException.class)
+					.hasMessageContaining("capacity");
+		}
+		assertThat(budget.getWaiting()).isZero();
+	}
+
+	@Test
+	void rejectsAfterTheQueueTimeout() {
+		ReflectionTestUtils.setField(budget, "queueTimeoutMs", 50L);
+
+		try (PdfMemoryBudget.Permit permit = budget.admit(10 * MIB)) {
+			assertThatThrownBy(() -> budget.admit(10 * MIB)).isInstanceOf(PdfAdmissionException.class);
+		}
+		assertThat(budget.getQueued()).isEqualTo(1);
+		assertThat(budget.getRejected()).isEqualTo(1);
+	}
+
+	@Test
+	void closingTwiceReleasesOnce() {
+		PdfMemoryBudget.Permit permit = budget.admit(MIB);
+		permit.close();
+		permit.close();
+
+		assertThat(budget.getAvailableBytes()).isEqualTo(32 * MIB);
+	}
+}
@@ -0,0 +1,100 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.FileBlob;
+import com.signature.signatureapp.repository.FileBlobRepository;
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PdfOptimizationServiceTest {
+
+	private static final long MIB = 1024 * 1024;
+
+	@TempDir
+	Path root;
+
+	private final FileBlobRepository fileBlobRepository = mock(FileBlobRepository.class);
+	private final PdfOptimizer pdfOptimizer = new PdfOptimizer();
+	private final PdfOptimizationService optimizationService = new PdfOptimizationService();
+	// 8 MiB base cost + 1.5 bytes per file byte against 32 MiB: files up to 16 MiB
+	private final PdfMemoryBudget budget = new PdfMemoryBudget(32 * MIB, 0.5);
+	private FileBlob blob;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		LocalStorageBackend storage = new LocalStorageBackend(root);
+		ReflectionTestUtils.setField(pdfOptimizer, "memoryBudget", budget);
+		ReflectionTestUtils.setField(optimizationService, "pdfOptimizer", pdfOptimizer);
+		ReflectionTestUtils.setField(optimizationService, "fileBlobRepository", fileBlobRepository);
+		ReflectionTestUtils.setField(optimizationService, "storage", storage);
+		ReflectionTestUtils.setField(optimizationService, "transactionTemplate",
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		ReflectionTestUtils.setField(optimizationService, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(optimizationService, "enabled", true);
+		ReflectionTestUtils.setField(optimizationService, "batchSize", 20);
+
+		blob = new FileBlob();
+		blob.setHash("abcd");
+		blob.setFilePath("abcd.pdf");
+		when(fileBlobRepository.findUnoptimized(any())).thenReturn(List.of(blob));
+	}
+
+	@Test
+	void skipsFilesLargerThanTheWholeBudget() throws IOException {
+		byte[] pdf = blankPdf();
+		storage().write(blob.getFilePath(), new ByteArrayInputStream(pdf));
+		// Room to count the pages, but not for the rewrite, which holds the file twice
+		PdfMemoryBudget small = new PdfMemoryBudget(8 * MIB + 2L * pdf.length, 0.5);
+		ReflectionTestUtils.setField(pdfOptimizer, "memoryBudget", small);
+
+		optimizationService.run();
+
+		verify(fileBlobRepository).markOptimized(eq("abcd"), any());
+		assertThat(optimizationService.stats()).containsEntry("unchanged", 1).containsEntry("failed", 0);
+	}
+
+	@Test
+	void defersFilesWhileTheBudgetIsAtCapacity() throws IOException {
+		storage().write(blob.getFilePath(), new ByteArrayInputStream(new byte[1024]));
+		ReflectionTestUtils.setField(budget, "maxQueued", 0);
+
+		try (PdfMemoryBudget.Permit permit = budget.admit(16 * MIB)) {
+			optimizationService.run();
+		}
+
+		verify(fileBlobRepository, never()).markOptimized(any(), any());
+	}
+
+	private static byte[] blankPdf() throws IOException {
+		try (PDDocument pdf = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			pdf.addPage(new PDPage());
+			pdf.save(out);
+			return out.toByteArray();
+		}
+	}
+
+	private LocalStorageBackend storage() {
+		return (LocalStorageBackend) ReflectionTestUtils.getField(optimizationService, "storage");
+	}
+}
@@ -0,0 +1,139 @@
+package com.signature.signatureapp.service;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.color.PDIndexed;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfOptimizerTest {
+
+	private static final int SIZE = 600;
+
+	@TempDir
+	Path dir;
+
+	private final PdfOptimizer optimizer = new PdfOptimizer();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(optimizer, "memoryBudget", new PdfMemoryBudget(256 * 1024 * 1024, 0.5));
+	}
+
+	@Test
+	void keepsTheColorsOfIndexedImages() throws IOException {
+		// Red left half, blue right half, through a two-entry palette
+		byte[] pixels = new byte[SIZE * SIZE];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = (byte) (i % SIZE < SIZE / 2 ? 0 : 1);
+		}
+		COSArray indexed = new COSArray();
+		indexed.add(COSName.INDEXED);
+		indexed.add(COSName.DEVICERGB);
+		indexed.add(COSInteger.ONE);
+		indexed.add(new COSString(new byte[] { (byte) 255, 0, 0, 0, 0, (byte) 255 }));
+
+		BufferedImage image = optimizeImage(new PDIndexed(indexed), pixels, 8);
+
+		assertThat(image.getWidth()).isLessThan(SIZE);
+		int left = image.getRGB(image.getWidth() / 4, image.getHeight() / 2);
+		int right = image.getRGB(3 * image.getWidth() / 4, image.getHeight() / 2);
+		assertThat(red(left)).isGreaterThan(200);
+		assertThat(blue(left)).isLessThan(60);
+		assertThat(blue(right)).isGreaterThan(200);
+		assertThat(red(right)).isLessThan(60);
+	}
+
+	@Test
+	void storesGrayImagesAsGray() throws IOException {
+		byte[] pixels = new byte[SIZE * SIZE];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = (byte) (i % SIZE);
+		}
+
+		PDColorSpace colorSpace = optimizedColorSpace(PDDeviceGray.INSTANCE, pixels, 8);
+
+		assertThat(colorSpace).isInstanceOf(PDDeviceGray.class);
+	}
+
+	@Test
+	void storesIndexedImagesAsRgb() throws IOException {
+		byte[] pixels = new byte[SIZE * SIZE];
+		COSArray indexed = new COSArray();
+		indexed.add(COSName.INDEXED);
+		indexed.add(COSName.DEVICERGB);
+		indexed.add(COSInteger.ZERO);
+		indexed.add(new COSString(new byte[] { 0, (byte) 128, 0 }));
+
+		assertThat(optimizedColorSpace(new PDIndexed(indexed), pixels, 8)).isInstanceOf(PDDeviceRGB.class);
+	}
+
+	private BufferedImage optimizeImage(PDColorSpace colorSpace, byte[] pixels, int bitsPerComponent)
+			throws IOException {
+		try (PDDocument pdf = PDDocument.load(optimize(colorSpace, pixels, bitsPerComponent).toFile())) {
+			return firstImage(pdf).getImage();
+		}
+	}
+
+	private PDColorSpace optimizedColorSpace(PDColorSpace colorSpace, byte[] pixels, int bitsPerComponent)
+			throws IOException {
+		try (PDDocument pdf = PDDocument.load(optimize(colorSpace, pixels, bitsPerComponent).toFile())) {
+			return firstImage(pdf).getColorSpace();
+		}
+	}
+
+	// One-page PDF drawing the image across one inch, i.e. at SIZE dpi
+	private Path optimize(PDColorSpace colorSpace, byte[] pixels, int bitsPerComponent) throws IOException {
+		Path source = dir.resolve("source.pdf");
+		Path target = dir.resolve("target.pdf");
+		try (PDDocument pdf = new PDDocument()) {
+			PDPage page = new PDPage(PDRectangle.LETTER);
+			pdf.addPage(page);
+			PDImageXObject image = new PDImageXObject(pdf, new ByteArrayInputStream(pixels), null,
+					SIZE, SIZE, bitsPerComponent, colorSpace);
+			try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+				content.drawImage(image, 72, 72, 72, 72);
+			}
+			pdf.save(source.toFile());
+		}
+
+		PdfOptimizer.Result result = optimizer.optimize(source, target);
+
+		assertThat(result.getSkipReason()).isNull();
+		assertThat(result.getImagesResampled()).isEqualTo(1);
+		return target;
+	}
+
+	private static PDImageXObject firstImage(PDDocument pdf) throws IOException {
+		PDPage page = pdf.getPage(0);
+		COSName name = page.getResources().getXObjectNames().iterator().next();
+		return (PDImageXObject) page.getResources().getXObject(name);
+	}
+
+	private static int red(int rgb) {
+		return (rgb >> 16) & 0xff;
+	}
+
+	private static int blue(int rgb) {
+		return rgb & 0xff;
+	}
+}
@@ -0,0 +1,164 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.dto.SignatureRequest;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfServiceTest {
+
+	@TempDir
+	Path dir;
+
+	private final PdfService pdfService = new PdfService();
+
+	@Test
+	void signedNameRewritesUpperCaseExtension() {
+		String signed = PdfService.signedName("abc.PDF");
+
+		assertThat(signed).matches("abc_signed_\\d+\\.pdf");
+		assertThat(signed).isNotEqualTo("abc.PDF");
+	}
+
+	@Test
+	void signedNameReplacesThePreviousSignedSuffix() {
+		String signed = PdfService.signedName("abc_signed_1700000000000.pdf");
+
+		assertThat(signed).matches("abc_signed_\\d+\\.pdf");
+		assertThat(signed).isNotEqualTo("abc_signed_1700000000000.pdf");
+	}
+
+	@Test
+	void signedNameOfKeyWithoutExtension() {
+		assertThat(PdfService.signedName("abc")).matches("abc_signed_\\d+\\.pdf");
+	}
+
+	@Test
+	void signsPlacementsOnSeveralPagesInOneSave() throws IOException {
+		Path source = createPdf(3);
+		Path target = dir.resolve("signed.pdf");
+
+		pdfService.addSignaturesToPdf(source.toString(), target.toString(),
+				List.of(placement("Alice", 1), placement("Bob", 3), placement("Carol", 3)));
+
+		try (PDDocument signed = PDDocument.load(target.toFile())) {
+			assertThat(signed.getNumberOfPages()).isEqualTo(3);
+			assertThat(pageText(signed, 1)).contains("Alice");
+			assertThat(pageText(signed, 2)).doesNotContain("Alice", "Bob", "Carol");
+			assertThat(pageText(signed, 3)).contains("Bob", "Carol");
+		}
+	}
+
+	@Test
+	void incrementalSaveKeepsTheOriginalBytesAsPrefix() throws IOException {
+		Path source = createPdf(2);
+		Path target = dir.resolve("signed.pdf");
+
+		pdfService.addSignaturesToPdf(source.toString(), target.toString(), List.of(placement("Alice", 2)));
+
+		byte[] original = Files.readAllBytes(source);
+		byte[] signed = Files.readAllBytes(target);
+		assertThat(signed.length).isGreaterThan(original.length);
+		assertThat(Arrays.copyOf(signed, original.length)).isEqualTo(original);
+		try (PDDocument document = PDDocument.load(target.toFile())) {
+			assertThat(pageText(document, 2)).contains("Alice");
+		}
+	}
+
+	@Test
+	void skippingStreamDropsExactlyThePrefix() throws IOException {
+		byte[] content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+		assertThat(skipping(4, 1, 2, 3, 4)).isEqualTo("456789");
+		assertThat(skipping(0, 10)).isEqualTo("0123456789");
+		assertThat(skipping(3, 3, 7)).isEqualTo("3456789");
+		assertThat(skipping(10, 4, 6)).isEmpty();
+		assertThat(skipping(20, 10)).isEmpty();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (OutputStream skipping = new PdfService.SkippingOutputStream(out, 2)) {
+			for (byte b : content) {
+				skipping.write(b);
+			}
+		}
+		assertThat(out.toString(StandardCharsets.US_ASCII)).isEqualTo("23456789");
+	}
+
+	@Test
+	void fullSaveRewritesTheDocument() throws IOException {
+		ReflectionTestUtils.setField(pdfService, "saveMode", "full");
+		Path source = createPdf(2);
+		Path target = dir.resolve("signed.pdf");
+
+		pdfService.addSignaturesToPdf(source.toString(), target.toString(), List.of(placement("Alice", 1)));
+
+		try (PDDocument document = PDDocument.load(target.toFile())) {
+			assertThat(pageText(document, 1)).contains("Alice");
+		}
+	}
+
+	@Test
+	void rejectsPageOutsideTheDocument() throws IOException {
+		Path source = createPdf(1);
+
+		assertThatThrownBy(() -> pdfService.addSignaturesToPdf(source.toString(),
+				dir.resolve("signed.pdf").toString(), List.of(placement("Alice", 2))))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// Writes "0123456789" in chunks of the given lengths
+	private static String skipping(long skip, int... chunks) throws IOException {
+		byte[] content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (OutputStream skipping = new PdfService.SkippingOutputStream(out, skip)) {
+			int offset = 0;
+			for (int chunk : chunks) {
+				skipping.write(content, offset, chunk);
+				offset += chunk;
+			}
+		}
+		return out.toString(StandardCharsets.US_ASCII);
+	}
+
+	private Path createPdf(int pages) throws IOException {
+		Path file = dir.resolve("source.pdf");
+		try (PDDocument document = new PDDocument()) {
+			for (int i = 0; i < pages; i++) {
+				document.addPage(new PDPage());
+			}
+			document.save(file.toFile());
+		}
+		return file;
+	}
+
+	private static SignatureRequest placement(String text, int page) {
+		SignatureRequest placement = new SignatureRequest();
+		placement.setSignatureData(text);
+		placement.setX(72);
+		placement.setY(72);
+		placement.setPageNumber(page);
+		return placement;
+	}
+
+	private static String pageText(PDDocument document, int page) throws IOException {
+		PDFTextStripper stripper = new PDFTextStripper();
+		stripper.setStartPage(page);
+		stripper.setEndPage(page);
+		return stripper.getText(document);
+	}
+}
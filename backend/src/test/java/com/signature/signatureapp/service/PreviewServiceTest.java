@@ -0,0 +1,179 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PreviewServiceTest {
+
+	private static final long MIB = 1024 * 1024;
+	private static final String KEY = "doc.pdf";
+
+	@TempDir
+	Path root;
+
+	@TempDir
+	Path cache;
+
+	private final ContentDigestService contentDigestService = mock(ContentDigestService.class);
+	private final PdfMemoryBudget budget = new PdfMemoryBudget(32 * MIB, 0.5);
+	private LocalStorageBackend storage;
+	private Document document;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		storage = spy(new LocalStorageBackend(root));
+		storage.write(KEY, new ByteArrayInputStream(blankPdf(4)));
+		document = new Document();
+		document.setFilePath(KEY);
+		document.setContentHash("abcd");
+		document.setPageCount(4);
+		when(contentDigestService.digest(KEY, "abcd")).thenReturn("abcd");
+	}
+
+	@Test
+	void concurrentMissesRenderOnce() throws Exception {
+		PreviewService previewService = previewService(cache, 64 * MIB);
+		CountDownLatch rendering = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			rendering.countDown();
+			release.await();
+			return invocation.callRealMethod();
+		}).when(storage).localFile(KEY);
+
+		AtomicReference<byte[]> first = new AtomicReference<>();
+		AtomicReference<byte[]> second = new AtomicReference<>();
+		Thread renderer = new Thread(() -> first.set(read(previewService, 1)));
+		renderer.start();
+		rendering.await();
+		Thread waiter = new Thread(() -> second.set(read(previewService, 1)));
+		waiter.start();
+		await().until(() -> waiter.getState() == Thread.State.WAITING);
+		release.countDown();
+		renderer.join();
+		waiter.join();
+
+		verify(storage, times(1)).localFile(KEY);
+		assertThat(first.get()).isNotEmpty().isEqualTo(second.get());
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedRenderOverTheBudget() throws IOException {
+		long size = renderSize();
+		PreviewService previewService = previewService(cache, 2 * size + size / 2);
+
+		String page1 = key(previewService, 1);
+		String page2 = key(previewService, 2);
+		key(previewService, 1);
+		String page3 = key(previewService, 3);
+
+		assertThat(cache.resolve(page1 + ".png")).exists();
+		assertThat(cache.resolve(page2 + ".png")).doesNotExist();
+		assertThat(cache.resolve(page3 + ".png")).exists();
+		verify(storage, times(3)).localFile(KEY);
+	}
+
+	@Test
+	void keepsTheAccessOrderAcrossRestarts() throws Exception {
+		long size = renderSize();
+		long maxBytes = 3 * size + size / 2;
+		PreviewService previewService = previewService(cache, maxBytes);
+		String page1 = key(previewService, 1);
+		Thread.sleep(20);
+		String page2 = key(previewService, 2);
+		Thread.sleep(20);
+		String page3 = key(previewService, 3);
+		Thread.sleep(20);
+		key(previewService, 1);
+
+		PreviewService restarted = previewService(cache, maxBytes);
+		String page4 = key(restarted, 4);
+
+		assertThat(cache.resolve(page1 + ".png")).exists();
+		assertThat(cache.resolve(page2 + ".png")).doesNotExist();
+		assertThat(cache.resolve(page3 + ".png")).exists();
+		assertThat(cache.resolve(page4 + ".png")).exists();
+		// Page 1 was served from the cache both times
+		verify(storage, times(4)).localFile(KEY);
+	}
+
+	@Test
+	void servesAnOpenPreviewEvenIfItIsEvicted() throws IOException {
+		long size = renderSize();
+		PreviewService previewService = previewService(cache, size + size / 2);
+
+		try (PreviewService.Preview preview = previewService.renderPage(document, 1, 72, "png")) {
+			key(previewService, 2);
+			assertThat(cache.resolve(preview.getKey() + ".png")).doesNotExist();
+			assertThat(preview.getContent().readAllBytes()).hasSize((int) preview.getSize());
+		}
+	}
+
+	private PreviewService previewService(Path directory, long maxBytes) {
+		PreviewService previewService = new PreviewService(directory.toString(), maxBytes);
+		ReflectionTestUtils.setField(previewService, "contentDigestService", contentDigestService);
+		ReflectionTestUtils.setField(previewService, "memoryBudget", budget);
+		ReflectionTestUtils.setField(previewService, "storage", storage);
+		ReflectionTestUtils.setField(previewService, "maxDpi", 300);
+		return previewService;
+	}
+
+	// Size of one page render; all pages are blank and the same size
+	private long renderSize() throws IOException {
+		Path probe = Files.createTempDirectory(root, "probe");
+		try (PreviewService.Preview preview = previewService(probe, 64 * MIB).renderPage(document, 1, 72, "png")) {
+			return preview.getSize();
+		} finally {
+			clearInvocations(storage);
+		}
+	}
+
+	private String key(PreviewService previewService, int page) throws IOException {
+		try (PreviewService.Preview preview = previewService.renderPage(document, page, 72, "png")) {
+			return preview.getKey();
+		}
+	}
+
+	private byte[] read(PreviewService previewService, int page) {
+		try (PreviewService.Preview preview = previewService.renderPage(document, page, 72, "png")) {
+			return preview.getContent().readAllBytes();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static byte[] blankPdf(int pages) throws IOException {
+		try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			for (int i = 0; i < pages; i++) {
+				document.addPage(new PDPage(new PDRectangle(100, 100)));
+			}
+			document.save(out);
+			return out.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.signature.signatureapp.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignatureImageCacheTest {
+
+	@Test
+	void stampsTheCachedImageIntoAnotherDocument() throws IOException {
+		SignatureImageCache cache = new SignatureImageCache(8);
+		String dataUrl = dataUrl(png(Color.RED));
+
+		byte[] first = stamp(cache, dataUrl);
+		byte[] second = stamp(cache, dataUrl);
+
+		assertThat(cache.getMisses()).isEqualTo(1);
+		assertThat(cache.getHits()).isEqualTo(1);
+		for (byte[] pdf : new byte[][] { first, second }) {
+			try (PDDocument document = PDDocument.load(pdf)) {
+				BufferedImage page = new PDFRenderer(document).renderImageWithDPI(0, 72);
+				assertThat(new Color(page.getRGB(120, page.getHeight() - 120))).isEqualTo(Color.RED);
+			}
+		}
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedImageAtCapacity() throws IOException {
+		SignatureImageCache cache = new SignatureImageCache(2);
+		String red = dataUrl(png(Color.RED));
+		String green = dataUrl(png(Color.GREEN));
+		String blue = dataUrl(png(Color.BLUE));
+
+		stamp(cache, red);
+		stamp(cache, green);
+		stamp(cache, red);
+		stamp(cache, blue);
+		stamp(cache, red);
+		stamp(cache, green);
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getEvictions()).isEqualTo(2);
+		assertThat(cache.getHits()).isEqualTo(2);
+		assertThat(cache.getMisses()).isEqualTo(4);
+	}
+
+	@Test
+	void remembersImagesThatCannotBeCached() throws IOException {
+		SignatureImageCache cache = new SignatureImageCache(8);
+		String dataUrl = dataUrl(withIccProfile(png(Color.RED)));
+
+		stamp(cache, dataUrl);
+		byte[] second = stamp(cache, dataUrl);
+
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.getHits()).isZero();
+		try (PDDocument document = PDDocument.load(second)) {
+			BufferedImage page = new PDFRenderer(document).renderImageWithDPI(0, 72);
+			assertThat(page.getRGB(120, page.getHeight() - 120) & 0xffffff).isNotEqualTo(0xffffff);
+		}
+	}
+
+	// One-page PDF with the image drawn at (100, 100), 40 points square
+	private static byte[] stamp(SignatureImageCache cache, String dataUrl) throws IOException {
+		try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			PDPage page = new PDPage();
+			document.addPage(page);
+			PDImageXObject image = cache.createImage(document, dataUrl);
+			try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+				content.drawImage(image, 100, 100, 40, 40);
+			}
+			document.save(out);
+			return out.toByteArray();
+		}
+	}
+
+	private static byte[] png(Color color) throws IOException {
+		BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < 16; y++) {
+			for (int x = 0; x < 16; x++) {
+				image.setRGB(x, y, color.getRGB());
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	// Inserts an iCCP chunk after IHDR; PDFBox embeds the profile as a separate stream
+	private static byte[] withIccProfile(byte[] png) throws IOException {
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		data.write("sRGB".getBytes(StandardCharsets.US_ASCII));
+		data.write(0);
+		data.write(0);
+		try (DeflaterOutputStream deflater = new DeflaterOutputStream(data)) {
+			deflater.write(ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData());
+		}
+		byte[] type = "iCCP".getBytes(StandardCharsets.US_ASCII);
+		byte[] body = data.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(body);
+
+		int afterHeader = 8 + 8 + 13 + 4;
+		ByteBuffer chunk = ByteBuffer.allocate(12 + body.length);
+		chunk.putInt(body.length).put(type).put(body).putInt((int) crc.getValue());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(png, 0, afterHeader);
+		out.write(chunk.array());
+		out.write(png, afterHeader, png.length - afterHeader);
+		return out.toByteArray();
+	}
+
+	private static String dataUrl(byte[] png) {
+		return "data:image/png;base64," + Base64.getEncoder().encodeToString(png);
+	}
+}
@@ -0,0 +1,137 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.Document;
+import com.signature.signatureapp.model.Signature;
+import com.signature.signatureapp.model.User;
+import com.signature.signatureapp.model.UserStats;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.repository.SignatureRepository;
+import com.signature.signatureapp.repository.UserRepository;
+import com.signature.signatureapp.repository.UserStatsRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against the configured database and rolls back after each test
+@SpringBootTest
+@Transactional
+class StatsServiceTest {
+
+	@Autowired
+	private StatsService statsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DocumentRepository documentRepository;
+
+	@Autowired
+	private SignatureRepository signatureRepository;
+
+	@Autowired
+	private UserStatsRepository userStatsRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+	@Test
+	void rebuildMatchesTheIncrementalCounters() {
+		User user = new User();
+		user.setEmail("stats-" + UUID.randomUUID() + "@example.com");
+		user.setPassword("x");
+		user.setName("Stats");
+		user = userRepository.save(user);
+
+		// One turnaround per histogram bucket, a pending document and a document signed twice
+		upload(user, Duration.ofMinutes(10));
+		upload(user, Duration.ofHours(5));
+		upload(user, Duration.ofDays(2), Duration.ofDays(6));
+		upload(user, Duration.ofDays(4));
+		upload(user, Duration.ofDays(10));
+		upload(user);
+
+		UserStats incremental = reload(user.getId());
+		assertThat(incremental.getDocumentsUploaded()).isEqualTo(6);
+		assertThat(incremental.getDocumentsCompleted()).isEqualTo(5);
+		assertThat(new long[] { incremental.getTurnaroundUnderHour(), incremental.getTurnaroundUnderDay(),
+				incremental.getTurnaroundUnderThreeDays(), incremental.getTurnaroundUnderWeek(),
+				incremental.getTurnaroundOverWeek() }).containsExactly(1, 1, 1, 1, 1);
+
+		statsService.rebuild(user.getId());
+
+		assertThat(reload(user.getId())).usingRecursiveComparison().ignoringFields("updatedAt")
+				.isEqualTo(incremental);
+	}
+
+	@Test
+	void bucketsTurnaroundAtTheBoundaries() {
+		User user = new User();
+		user.setEmail("stats-" + UUID.randomUUID() + "@example.com");
+		user.setPassword("x");
+		user.setName("Stats");
+		user = userRepository.save(user);
+
+		upload(user, Duration.ofHours(1));
+		upload(user, Duration.ofDays(1));
+		upload(user, Duration.ofDays(7));
+
+		UserStats incremental = reload(user.getId());
+		assertThat(new long[] { incremental.getTurnaroundUnderHour(), incremental.getTurnaroundUnderDay(),
+				incremental.getTurnaroundUnderThreeDays(), incremental.getTurnaroundUnderWeek(),
+				incremental.getTurnaroundOverWeek() }).containsExactly(0, 1, 1, 0, 1);
+
+		statsService.rebuild(user.getId());
+
+		assertThat(reload(user.getId())).usingRecursiveComparison().ignoringFields("updatedAt")
+				.isEqualTo(incremental);
+	}
+
+	// Uploads a document and signs it at each of the given times after the upload, recording the
+	// events the way DocumentService and SignatureService do
+	private void upload(User user, Duration... signedAfter) {
+		Document document = new Document();
+		document.setName("stats.pdf");
+		document.setFilePath(UUID.randomUUID() + ".pdf");
+		document.setFileType("application/pdf");
+		document.setStatus(signedAfter.length == 0 ? "pending" : "signed");
+		document.setUser(user);
+		document = documentRepository.saveAndFlush(document);
+		LocalDateTime uploadTime = now.minusDays(30);
+		jdbcTemplate.update("UPDATE documents SET upload_time = ? WHERE id = ?", uploadTime, document.getId());
+		statsService.recordUpload(user.getId());
+
+		for (int i = 0; i < signedAfter.length; i++) {
+			Signature signature = new Signature();
+			signature.setDocument(document);
+			signature.setUser(user);
+			signature = signatureRepository.saveAndFlush(signature);
+			LocalDateTime signedAt = uploadTime.plus(signedAfter[i]);
+			jdbcTemplate.update("UPDATE signatures SET signed_at = ? WHERE id = ?", signedAt, signature.getId());
+			if (i == 0) {
+				statsService.recordCompleted(user.getId(), uploadTime, signedAt);
+			}
+		}
+	}
+
+	private UserStats reload(Long userId) {
+		entityManager.flush();
+		entityManager.clear();
+		return userStatsRepository.findById(userId).orElseThrow();
+	}
+}
@@ -0,0 +1,132 @@
+package com.signature.signatureapp.service;
+
+import com.signature.signatureapp.model.DocumentVersion;
+import com.signature.signatureapp.model.PendingFile;
+import com.signature.signatureapp.repository.DocumentRepository;
+import com.signature.signatureapp.repository.DocumentVersionRepository;
+import com.signature.signatureapp.repository.PendingFileRepository;
+import com.signature.signatureapp.storage.LocalStorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VersionCollectorTest {
+
+	@TempDir
+	Path root;
+
+	private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+	private final DocumentVersionRepository documentVersionRepository = mock(DocumentVersionRepository.class);
+	private final PendingFileRepository pendingFileRepository = mock(PendingFileRepository.class);
+	private final VersionCollector collector = new VersionCollector();
+	private LocalStorageBackend storage;
+
+	@BeforeEach
+	void setUp() {
+		storage = new LocalStorageBackend(root);
+		ReflectionTestUtils.setField(collector, "storage", storage);
+		ReflectionTestUtils.setField(collector, "documentRepository", documentRepository);
+		ReflectionTestUtils.setField(collector, "documentVersionRepository", documentVersionRepository);
+		ReflectionTestUtils.setField(collector, "pendingFileRepository", pendingFileRepository);
+		ReflectionTestUtils.setField(collector, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(collector, "batchSize", 2);
+		ReflectionTestUtils.setField(collector, "maxBytesPerSecond", 0L);
+	}
+
+	@Test
+	void reapsStalePendingFilesNothingRefersTo() throws IOException {
+		store("bbbb_signed_1700000000000.pdf", true);
+		store("cccc_signed_1700000000000.pdf", true);
+		PendingFile orphan = pending("bbbb_signed_1700000000000.pdf");
+		PendingFile adoptedElsewhere = pending("cccc_signed_1700000000000.pdf");
+		when(pendingFileRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(any(), any()))
+				.thenReturn(List.of(orphan, adoptedElsewhere));
+		when(documentRepository.existsByFilePath(adoptedElsewhere.getStorageKey())).thenReturn(true);
+
+		collector.collect();
+
+		assertThat(storage.stat(orphan.getStorageKey())).isNull();
+		assertThat(storage.stat(adoptedElsewhere.getStorageKey())).isNotNull();
+		verify(pendingFileRepository).delete(orphan);
+		verify(pendingFileRepository).delete(adoptedElsewhere);
+	}
+
+	@Test
+	void looksOnlyAtPendingFilesOlderThanTheMinimumAge() throws IOException {
+		store("dddd_signed_1700000000000.pdf", true);
+		store("eeee.pdf", true);
+		LocalDateTime before = LocalDateTime.now();
+
+		collector.collect();
+
+		ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+		ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+		verify(pendingFileRepository).findByCreatedAtBeforeOrderByCreatedAtAsc(cutoff.capture(), page.capture());
+		assertThat(cutoff.getValue()).isBetween(before.minusHours(6), LocalDateTime.now().minusHours(6));
+		assertThat(page.getValue().getPageSize()).isEqualTo(2);
+		// Files without a pending row are never listed or deleted
+		assertThat(storage.stat("dddd_signed_1700000000000.pdf")).isNotNull();
+		assertThat(storage.stat("eeee.pdf")).isNotNull();
+	}
+
+	@Test
+	void deletesExpiredVersionsNothingElseUses() throws IOException {
+		store("ffff_signed_1700000000000.pdf", false);
+		store("ffff_signed_1700000000001.pdf", false);
+		DocumentVersion unused = expired(1L, "ffff_signed_1700000000000.pdf");
+		DocumentVersion shared = expired(2L, "ffff_signed_1700000000001.pdf");
+		when(documentVersionRepository.findByRetentionAndExpiresAtBeforeAndDeletedAtIsNullOrderByExpiresAtAsc(
+				eq(DocumentVersion.RETENTION_EXPIRING), any(), any())).thenReturn(List.of(unused, shared));
+		when(documentVersionRepository.existsByFilePathAndDeletedAtIsNullAndIdNot(anyString(), any()))
+				.thenAnswer(invocation -> invocation.getArgument(0).equals(shared.getFilePath()));
+
+		collector.collect();
+
+		assertThat(storage.stat(unused.getFilePath())).isNull();
+		assertThat(storage.stat(shared.getFilePath())).isNotNull();
+		assertThat(unused.getDeletedAt()).isNotNull();
+		assertThat(shared.getDeletedAt()).isNotNull();
+	}
+
+	private void store(String key, boolean old) throws IOException {
+		storage.write(key, new ByteArrayInputStream(new byte[128]));
+		if (old) {
+			Files.setLastModifiedTime(storage.localPath(key), FileTime.from(Instant.now().minus(7, ChronoUnit.DAYS)));
+		}
+	}
+
+	private static PendingFile pending(String key) {
+		return new PendingFile(key, LocalDateTime.now().minusDays(1));
+	}
+
+	private static DocumentVersion expired(Long id, String filePath) {
+		DocumentVersion version = new DocumentVersion();
+		version.setId(id);
+		version.setFilePath(filePath);
+		version.setRetention(DocumentVersion.RETENTION_EXPIRING);
+		version.setExpiresAt(LocalDateTime.now().minusDays(1));
+		return version;
+	}
+}
@@ -0,0 +1,91 @@
+package com.signature.signatureapp.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalStorageBackendTest extends StorageBackendContractTest {
+
+	private static final String HASHED_KEY = "abcdef0123_signed_1700000000000.pdf";
+
+	@TempDir
+	Path root;
+
+	private LocalStorageBackend storage;
+
+	@BeforeEach
+	void setUp() {
+		storage = new LocalStorageBackend(root);
+	}
+
+	@Override
+	protected StorageBackend storage() {
+		return storage;
+	}
+
+	// The local backend has no parts; any size exercises the same code path
+	@Override
+	protected int partSize() {
+		return 64 * 1024;
+	}
+
+	@Test
+	void shardsByTheLeadingContentHash() throws IOException {
+		storage.write(HASHED_KEY, new ByteArrayInputStream(new byte[4]));
+
+		assertThat(root.resolve("ab").resolve("cd").resolve(HASHED_KEY)).exists();
+		try (Stream<StoredObject> objects = storage.list("")) {
+			assertThat(objects).extracting(StoredObject::getKey).containsExactly(HASHED_KEY);
+		}
+	}
+
+	@Test
+	void findsFilesLeftInTheFlatLayout() throws IOException {
+		Files.write(root.resolve(HASHED_KEY), "flat".getBytes(StandardCharsets.US_ASCII));
+
+		assertThat(storage.stat(HASHED_KEY).getSize()).isEqualTo(4);
+		try (InputStream in = storage.read(HASHED_KEY, 1, 2)) {
+			assertThat(in.readAllBytes()).isEqualTo("la".getBytes(StandardCharsets.US_ASCII));
+		}
+		assertThat(storage.flatFiles(10)).containsExactly(root.resolve(HASHED_KEY));
+
+		assertThat(storage.delete(HASHED_KEY)).isTrue();
+		assertThat(root.resolve(HASHED_KEY)).doesNotExist();
+	}
+
+	@Test
+	void flatLayoutWritesIntoTheRoot() throws IOException {
+		LocalStorageBackend flat = new LocalStorageBackend(root, false);
+
+		flat.write(HASHED_KEY, new ByteArrayInputStream(new byte[4]));
+
+		assertThat(root.resolve(HASHED_KEY)).exists();
+	}
+
+	@Test
+	void leavesScratchFilesOutOfListings() throws IOException {
+		storage.newTempFile("write-", ".tmp");
+
+		try (Stream<StoredObject> objects = storage.list("")) {
+			assertThat(objects).isEmpty();
+		}
+	}
+
+	@Test
+	void rejectsKeysOutsideTheRoot() {
+		assertThatThrownBy(() -> storage.stat("../../../escape.pdf")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> storage.write("../../../escape.pdf", new ByteArrayInputStream(new byte[1])))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,50 @@
+package com.signature.signatureapp.storage;
+
+import com.signature.signatureapp.config.StorageConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.nio.file.Path;
+
+// Runs against MinIO or another S3-compatible server:
+// S3_ENDPOINT=http://localhost:9000 S3_ACCESS_KEY=... S3_SECRET_KEY=... [S3_BUCKET=...] mvn test
+@EnabledIfEnvironmentVariable(named = "S3_ENDPOINT", matches = ".+")
+class S3StorageBackendTest extends StorageBackendContractTest {
+
+	@TempDir
+	Path scratch;
+
+	private S3Client client;
+	private StorageBackend storage;
+
+	@BeforeEach
+	void setUp() {
+		client = new StorageConfig().s3Client(System.getenv("S3_ENDPOINT"), env("S3_REGION", "us-east-1"),
+				env("S3_ACCESS_KEY", ""), env("S3_SECRET_KEY", ""), true);
+		storage = new StorageConfig().s3StorageBackend(client, env("S3_BUCKET", "storage-contract"),
+				S3StorageBackend.MIN_PART_SIZE, scratch.toString(), true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		client.close();
+	}
+
+	@Override
+	protected StorageBackend storage() {
+		return storage;
+	}
+
+	@Override
+	protected int partSize() {
+		return S3StorageBackend.MIN_PART_SIZE;
+	}
+
+	private static String env(String name, String fallback) {
+		String value = System.getenv(name);
+		return value == null || value.isBlank() ? fallback : value;
+	}
+}
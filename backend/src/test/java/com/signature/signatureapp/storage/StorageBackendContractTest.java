@@ -0,0 +1,172 @@
+package com.signature.signatureapp.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Behaviour every StorageBackend has to share; subclasses supply the backend
+abstract class StorageBackendContractTest {
+
+	private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+	protected abstract StorageBackend storage();
+
+	// Size at which writes switch to multipart uploads
+	protected abstract int partSize();
+
+	// Keys are unique per test so a shared bucket needs no cleanup between runs
+	protected String key(String name) {
+		return "contract/" + UUID.randomUUID() + "/" + name;
+	}
+
+	@Test
+	void readsBackWhatWasWritten() throws IOException {
+		String key = key("a.pdf");
+
+		assertThat(storage().write(key, new ByteArrayInputStream(CONTENT))).isEqualTo(CONTENT.length);
+
+		assertThat(readAll(storage().read(key))).isEqualTo(CONTENT);
+		assertThat(storage().stat(key).getSize()).isEqualTo(CONTENT.length);
+		assertThat(storage().stat(key).getKey()).isEqualTo(key);
+	}
+
+	@Test
+	void readsRanges() throws IOException {
+		String key = key("a.pdf");
+		storage().write(key, new ByteArrayInputStream(CONTENT));
+
+		assertThat(range(key, 0, 4)).isEqualTo("0123");
+		assertThat(range(key, 8, 5)).isEqualTo("89abc");
+		assertThat(range(key, 17, 3)).isEqualTo("hij");
+		assertThat(range(key, 19, 1)).isEqualTo("j");
+		assertThat(range(key, 5, 0)).isEmpty();
+	}
+
+	@Test
+	void reportsMissingKeys() throws IOException {
+		String key = key("missing.pdf");
+
+		assertThat(storage().stat(key)).isNull();
+		assertThatThrownBy(() -> storage().read(key).close()).isInstanceOf(NoSuchFileException.class);
+		assertThatThrownBy(() -> storage().localFile(key).close()).isInstanceOf(NoSuchFileException.class);
+	}
+
+	@Test
+	void importsAndConsumesTheScratchFile() throws IOException {
+		String key = key("imported.pdf");
+		Path scratch = storage().newTempFile("import-", ".tmp");
+		Files.write(scratch, CONTENT);
+
+		assertThat(storage().importFile(key, scratch)).isEqualTo(CONTENT.length);
+
+		assertThat(scratch).doesNotExist();
+		assertThat(readAll(storage().read(key))).isEqualTo(CONTENT);
+	}
+
+	@Test
+	void overwritesExistingKeys() throws IOException {
+		String key = key("a.pdf");
+		storage().write(key, new ByteArrayInputStream(CONTENT));
+
+		storage().write(key, new ByteArrayInputStream("new".getBytes(StandardCharsets.US_ASCII)));
+
+		assertThat(readAll(storage().read(key))).isEqualTo("new".getBytes(StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	void deletesOnce() throws IOException {
+		String key = key("a.pdf");
+		storage().write(key, new ByteArrayInputStream(CONTENT));
+
+		assertThat(storage().delete(key)).isTrue();
+		assertThat(storage().delete(key)).isFalse();
+		assertThat(storage().stat(key)).isNull();
+	}
+
+	@Test
+	void listsByPrefix() throws IOException {
+		String prefix = key("");
+		storage().write(prefix + "a.pdf", new ByteArrayInputStream(CONTENT));
+		storage().write(prefix + "b.pdf", new ByteArrayInputStream(new byte[3]));
+		storage().write(key("other.pdf"), new ByteArrayInputStream(CONTENT));
+
+		try (Stream<StoredObject> objects = storage().list(prefix)) {
+			assertThat(objects)
+					.extracting(StoredObject::getKey, StoredObject::getSize)
+					.containsExactlyInAnyOrder(
+							tuple(prefix + "a.pdf", (long) CONTENT.length),
+							tuple(prefix + "b.pdf", 3L));
+		}
+	}
+
+	@Test
+	void copiesToALocalFile() throws IOException {
+		String key = key("a.pdf");
+		storage().write(key, new ByteArrayInputStream(CONTENT));
+
+		try (LocalFile file = storage().localFile(key)) {
+			assertThat(file.getPath()).hasBinaryContent(CONTENT);
+		}
+	}
+
+	@Test
+	void writesAcrossPartBoundaries() throws IOException {
+		for (int size : new int[] { partSize() - 1, partSize(), partSize() + 1, 2 * partSize() + 7 }) {
+			byte[] content = random(size);
+			String key = key(size + ".bin");
+
+			assertThat(storage().write(key, new ByteArrayInputStream(content))).as("size %d", size).isEqualTo(size);
+
+			assertThat(storage().stat(key).getSize()).as("size %d", size).isEqualTo(size);
+			assertThat(readAll(storage().read(key))).as("size %d", size).isEqualTo(content);
+			// Ranges spanning the part boundary
+			assertThat(readAll(storage().read(key, partSize() - 3, 6)))
+					.as("size %d", size)
+					.isEqualTo(Arrays.copyOfRange(content, partSize() - 3, Math.min(size, partSize() + 3)));
+			storage().delete(key);
+		}
+	}
+
+	@Test
+	void importsAcrossPartBoundaries() throws IOException {
+		byte[] content = random(partSize() + 1);
+		String key = key("large.bin");
+		Path scratch = storage().newTempFile("import-", ".tmp");
+		Files.write(scratch, content);
+
+		assertThat(storage().importFile(key, scratch)).isEqualTo(content.length);
+
+		assertThat(readAll(storage().read(key))).isEqualTo(content);
+		storage().delete(key);
+	}
+
+	private String range(String key, long offset, long length) throws IOException {
+		return new String(readAll(storage().read(key, offset, length)), StandardCharsets.US_ASCII);
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		try (in) {
+			return in.readAllBytes();
+		}
+	}
+
+	private static byte[] random(int size) {
+		byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		return content;
+	}
+}